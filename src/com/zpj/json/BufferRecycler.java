@@ -0,0 +1,92 @@
+package com.zpj.json;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 序列化缓冲区的回收池。每次序列化从池中取出一个缓冲区，结束后归还，避免每次都从小数组开始反复扩容。
+ * 池的容量固定，通过CAS存取，不加锁也不绑定线程，缓冲区不会随线程数量增长而被长期占用；
+ * 超过{@link #MAX_RECYCLED_SIZE}的缓冲区不会被归还，单个超大文档不会一直占用内存
+ */
+final class BufferRecycler {
+
+    /**
+     * 可以被归还的最大缓冲区长度，以char或byte计
+     */
+    static final int MAX_RECYCLED_SIZE = 256 * 1024;
+
+    /**
+     * 池中char[]和byte[]各自的数量，必须为2的幂
+     */
+    private static final int SLOTS = 8;
+
+    private final AtomicReferenceArray<char[]> chars = new AtomicReferenceArray<>(SLOTS);
+    private final AtomicReferenceArray<byte[]> bytes = new AtomicReferenceArray<>(SLOTS);
+
+    /**
+     * 不同线程从不同的位置开始查找，减少竞争
+     */
+    private static int start() {
+        return (int) Thread.currentThread().getId() & (SLOTS - 1);
+    }
+
+    /**
+     * 取出一个长度不小于minSize的char数组，池中没有合适的数组时创建新数组
+     */
+    char[] allocChars(int minSize) {
+        int start = start();
+        for (int i = 0; i < SLOTS; i++) {
+            int index = (start + i) & (SLOTS - 1);
+            char[] buf = chars.get(index);
+            if (buf != null && buf.length >= minSize && chars.compareAndSet(index, buf, null)) {
+                return buf;
+            }
+        }
+        return new char[minSize];
+    }
+
+    /**
+     * 归还char数组，之后调用者不能再使用它
+     */
+    void releaseChars(char[] buf) {
+        if (buf.length > MAX_RECYCLED_SIZE) {
+            return;
+        }
+        int start = start();
+        for (int i = 0; i < SLOTS; i++) {
+            if (chars.compareAndSet((start + i) & (SLOTS - 1), null, buf)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 取出一个长度不小于minSize的byte数组，池中没有合适的数组时创建新数组
+     */
+    byte[] allocBytes(int minSize) {
+        int start = start();
+        for (int i = 0; i < SLOTS; i++) {
+            int index = (start + i) & (SLOTS - 1);
+            byte[] buf = bytes.get(index);
+            if (buf != null && buf.length >= minSize && bytes.compareAndSet(index, buf, null)) {
+                return buf;
+            }
+        }
+        return new byte[minSize];
+    }
+
+    /**
+     * 归还byte数组，之后调用者不能再使用它
+     */
+    void releaseBytes(byte[] buf) {
+        if (buf.length > MAX_RECYCLED_SIZE) {
+            return;
+        }
+        int start = start();
+        for (int i = 0; i < SLOTS; i++) {
+            if (bytes.compareAndSet((start + i) & (SLOTS - 1), null, buf)) {
+                return;
+            }
+        }
+    }
+
+}
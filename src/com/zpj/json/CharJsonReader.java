@@ -0,0 +1,148 @@
+package com.zpj.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * 基于char数组的json读取器。从{@link Reader}读取时只保留一个固定大小的窗口，
+ * 读到窗口末尾时再从Reader中补充
+ */
+final class CharJsonReader extends JsonReader {
+
+    private char[] buf;
+
+    /**
+     * 为null时buf中已经是完整的json
+     */
+    private final Reader in;
+
+    CharJsonReader(String json) {
+        this.buf = json.toCharArray();
+        this.limit = buf.length;
+        this.pos = 0;
+        this.in = null;
+    }
+
+    /**
+     * @param in         json来源，不会被关闭
+     * @param bufferSize 窗口大小，超过窗口大小的单个token会使窗口扩大
+     */
+    CharJsonReader(Reader in, int bufferSize) {
+        this.buf = new char[Math.max(bufferSize, 16)];
+        this.limit = 0;
+        this.pos = 0;
+        this.in = in;
+    }
+
+    @Override
+    protected boolean fill(int minimum) {
+        if (in == null) {
+            return false;
+        }
+        int keep = mark >= 0 ? mark : pos;
+        if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            shift(keep);
+        }
+        try {
+            while (limit - pos < minimum) {
+                if (limit == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                }
+                int count = in.read(buf, limit, buf.length - limit);
+                if (count == -1) {
+                    return false;
+                }
+                limit += count;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    @Override
+    protected int charAt(int index) {
+        return buf[index];
+    }
+
+    @Override
+    protected String string(int start, int length) {
+        return new String(buf, start, length);
+    }
+
+    @Override
+    int nextName(NameTable names) {
+        if (peek() != '"') {
+            return names.find(nextString());
+        }
+        mark = ++pos;
+        int hash = 0;
+        while (pos < limit || fill(1)) {
+            char c = buf[pos];
+            if (c == '"') {
+                int start = mark;
+                mark = -1;
+                return names.find(buf, start, pos++ - start, hash);
+            } else if (c == '\\') {
+                pos = mark;
+                mark = -1;
+                return names.find(readQuoted());
+            }
+            hash = 31 * hash + c;
+            pos++;
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    @Override
+    int nextName(NameTable names, int expected) {
+        int length = names.quotedLength(expected);
+        if (length > 0 && peek() == '"' && (limit - pos >= length || fill(length))
+                && names.matchesQuoted(expected, buf, pos)) {
+            pos += length;
+            return expected;
+        }
+        return nextName(names);
+    }
+
+    @Override
+    protected String readQuoted() {
+        mark = pos;
+        while (pos < limit || fill(1)) {
+            char c = buf[pos];
+            if (c == '"') {
+                String value = new String(buf, mark, pos++ - mark);
+                mark = -1;
+                return value;
+            } else if (c == '\\') {
+                break;
+            }
+            pos++;
+        }
+        StringBuilder builder = new StringBuilder(pos - mark + 16);
+        builder.append(buf, mark, pos - mark);
+        mark = -1;
+        while (pos < limit || fill(1)) {
+            char c = buf[pos++];
+            if (c == '"') {
+                return builder.toString();
+            } else if (c == '\\') {
+                builder.append(readEscape());
+            } else {
+                builder.append(c);
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    @Override
+    void buildIndex() {
+        if (in == null) {
+            index = StructuralIndex.of(buf, pos, limit);
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.zpj.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * 写入char数组的json写入器。没有目标Writer时缓冲区按需扩大，
+ * 否则缓冲区写满时写出到Writer，占用的内存不随json的大小增长
+ */
+final class CharJsonWriter extends JsonWriter {
+
+    private char[] buf;
+    private int count;
+
+    /**
+     * 为null时所有内容保存在buf中，通过{@link #toString()}获取
+     */
+    private final Writer out;
+
+    CharJsonWriter() {
+        this(new char[256]);
+    }
+
+    /**
+     * @param buf 初始缓冲区，写满时扩大
+     */
+    CharJsonWriter(char[] buf) {
+        this.buf = buf;
+        this.out = null;
+    }
+
+    /**
+     * @param out        写入目标，不会被关闭
+     * @param bufferSize 缓冲区大小
+     */
+    CharJsonWriter(Writer out, int bufferSize) {
+        this(out, new char[Math.max(bufferSize, MIN_BUFFER_SIZE)]);
+    }
+
+    /**
+     * @param out 写入目标，不会被关闭
+     * @param buf 缓冲区，长度不小于{@link #MIN_BUFFER_SIZE}
+     */
+    CharJsonWriter(Writer out, char[] buf) {
+        this.buf = buf;
+        this.out = out;
+    }
+
+    /**
+     * 当前使用的缓冲区，没有目标Writer时可能已经被扩大，写入结束后可以归还给{@link BufferRecycler}
+     */
+    char[] buffer() {
+        return buf;
+    }
+
+    @Override
+    protected void write(char c) throws IOException {
+        if (count == buf.length) {
+            makeRoom(1);
+        }
+        buf[count++] = c;
+    }
+
+    @Override
+    protected void write(String s, int start, int end) throws IOException {
+        int length = end - start;
+        if (count + length > buf.length) {
+            makeRoom(length);
+            if (length > buf.length) {
+                // 比缓冲区还长的字符串直接写出
+                out.write(s, start, length);
+                return;
+            }
+        }
+        s.getChars(start, end, buf, count);
+        count += length;
+    }
+
+    @Override
+    protected void write(char[] chars, int offset, int length) throws IOException {
+        if (count + length > buf.length) {
+            makeRoom(length);
+        }
+        System.arraycopy(chars, offset, buf, count, length);
+        count += length;
+    }
+
+    @Override
+    protected void write(FieldName name) throws IOException {
+        char[] chars = name.chars;
+        if (count + chars.length > buf.length) {
+            makeRoom(chars.length);
+            if (chars.length > buf.length) {
+                out.write(chars);
+                return;
+            }
+        }
+        System.arraycopy(chars, 0, buf, count, chars.length);
+        count += chars.length;
+    }
+
+    private void makeRoom(int length) throws IOException {
+        if (out == null) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + length));
+        } else {
+            out.write(buf, 0, count);
+            count = 0;
+        }
+    }
+
+    @Override
+    void flush() throws IOException {
+        if (out != null) {
+            out.write(buf, 0, count);
+            count = 0;
+            out.flush();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, count);
+    }
+
+}
@@ -0,0 +1,666 @@
+package com.zpj.json;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 在运行时为一个类生成{@link GeneratedCodec}的子类，直接输出class文件，不依赖字节码库。
+ * <p>
+ * 生成的类按字段逐个展开读写：写入时依次取出字段的值并写入预先转义的名字；
+ * 读取时用字段名的hash查表得到字段下标，再通过tableswitch跳到该字段的读取代码。
+ * java 15及以上版本通过Lookup.defineHiddenClass把生成的类定义为被读写的类的nestmate，可以直接访问private字段；
+ * 更早的版本或定义失败时定义在单独的类加载器中，只能直接访问public字段。
+ * 不能直接访问的字段和final字段通过下标回到反射时的FieldAccessor，整个类无法生成时返回null
+ */
+final class CodecGenerator {
+
+    /**
+     * 每个字段生成的代码不超过30字节，字段过多时超过方法长度的限制
+     */
+    static final int MAX_FIELDS = 1024;
+
+    private static final String CODEC = "com/zpj/json/GeneratedCodec";
+    private static final String READER = "Lcom/zpj/json/JsonReader;";
+    private static final String WRITER = "Lcom/zpj/json/JsonWriter;";
+    private static final String OBJECT = "Ljava/lang/Object;";
+    private static final String STRING = "Ljava/lang/String;";
+
+    /**
+     * java 5的class文件不需要StackMapTable，由jvm推导类型
+     */
+    private static final int VERSION = 49;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int ILOAD = 0x15;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int ALOAD_3 = 0x2d;
+    private static final int ISTORE = 0x36;
+    private static final int ASTORE_3 = 0x4e;
+    private static final int POP = 0x57;
+    private static final int IFEQ = 0x99;
+    private static final int GOTO = 0xa7;
+    private static final int TABLESWITCH = 0xaa;
+    private static final int RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int CHECKCAST = 0xc0;
+
+    /**
+     * read方法中的局部变量：0 this，1 reader，2 obj，3 转换类型后的obj，4 预测的下一个字段，5 字段下标
+     */
+    private static final int EXPECTED = 4;
+    private static final int INDEX = 5;
+
+    /**
+     * MethodHandles.privateLookupIn，java 9以下为null
+     */
+    private static final Method PRIVATE_LOOKUP_IN;
+
+    /**
+     * Lookup.defineHiddenClass，java 15以下为null
+     */
+    private static final Method DEFINE_HIDDEN_CLASS;
+
+    /**
+     * 只包含Lookup.ClassOption.NESTMATE的数组
+     */
+    private static final Object NESTMATE;
+
+    /**
+     * Class.getModule和Module.isExported(String)，java 9以下为null
+     */
+    private static final Method GET_MODULE;
+    private static final Method IS_EXPORTED;
+
+    static {
+        Method privateLookupIn = null;
+        Method defineHiddenClass = null;
+        Object nestmate = null;
+        try {
+            privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Class<Enum> option = (Class<Enum>) Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            nestmate = Array.newInstance(option, 1);
+            Array.set(nestmate, 0, Enum.valueOf(option, "NESTMATE"));
+            defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+                    byte[].class, boolean.class, nestmate.getClass());
+        } catch (Exception e) {
+            defineHiddenClass = null;
+        }
+        PRIVATE_LOOKUP_IN = privateLookupIn;
+        DEFINE_HIDDEN_CLASS = defineHiddenClass;
+        NESTMATE = nestmate;
+
+        Method getModule;
+        Method isExported;
+        try {
+            getModule = Class.class.getMethod("getModule");
+            isExported = getModule.getReturnType().getMethod("isExported", String.class);
+        } catch (Exception e) {
+            getModule = null;
+            isExported = null;
+        }
+        GET_MODULE = getModule;
+        IS_EXPORTED = isExported;
+    }
+
+    private CodecGenerator() {
+
+    }
+
+    /**
+     * @param type   被读写的类
+     * @param fields 与ClassBinding.fields对应的字段，为null的字段总是通过FieldAccessor读写
+     * @return 还没有初始化的实例，无法生成时返回null
+     */
+    static GeneratedCodec generate(Class<?> type, Field[] fields) {
+        return generate(type, fields, DEFINE_HIDDEN_CLASS != null);
+    }
+
+    /**
+     * @param hidden 是否先尝试定义为hidden class
+     */
+    static GeneratedCodec generate(Class<?> type, Field[] fields, boolean hidden) {
+        if (fields.length > MAX_FIELDS || type.isArray() || type.isPrimitive() || type.isInterface()) {
+            return null;
+        }
+        String name = type.getName() + "$ZsonCodec";
+        if (hidden) {
+            try {
+                return instantiate(defineHidden(type, emit(name, type, fields, type)));
+            } catch (Exception | LinkageError e) {
+                // 例如type的类加载器看不到GeneratedCodec，或者type所在的包没有对Zson开放
+            }
+        }
+        if (!canReference(type, null)) {
+            return null;
+        }
+        try {
+            return instantiate(new CodecLoader(type.getClassLoader()).define(name, emit(name, type, fields, null)));
+        } catch (Exception | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static Class<?> defineHidden(Class<?> type, byte[] bytes) throws Exception {
+        MethodHandles.Lookup lookup = (MethodHandles.Lookup) PRIVATE_LOOKUP_IN.invoke(null, type, MethodHandles.lookup());
+        return ((MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(lookup, bytes, true, NESTMATE)).lookupClass();
+    }
+
+    private static GeneratedCodec instantiate(Class<?> codec) throws Exception {
+        return (GeneratedCodec) codec.getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * @param host hidden class的宿主，生成的类与它位于同一个运行时包；定义在单独的类加载器中时为null
+     */
+    private static byte[] emit(String name, Class<?> type, Field[] fields, Class<?> host) {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef(internalName(name));
+        int superClass = pool.classRef(CODEC);
+        int typeClass = pool.classRef(internalName(type.getName()));
+
+        ByteVector methods = new ByteVector();
+        ByteVector code = new ByteVector();
+        code.u1(ALOAD_0).u1(INVOKESPECIAL).u2(pool.methodRef(CODEC, "<init>", "()V")).u1(RETURN);
+        method(methods, pool, ACC_PUBLIC, "<init>", "()V", 1, 1, code);
+        method(methods, pool, ACC_PROTECTED, "write", "(" + WRITER + OBJECT + ")V", 6, 4,
+                writeCode(pool, typeClass, fields, host));
+        method(methods, pool, ACC_PROTECTED, "read", "(" + READER + OBJECT + ")V", 6, 6,
+                readCode(pool, typeClass, fields, host));
+
+        ByteVector out = new ByteVector();
+        out.u4(0xCAFEBABE).u2(0).u2(VERSION);
+        out.u2(pool.count).bytes(pool.bytes);
+        out.u2(ACC_PUBLIC | ACC_FINAL | ACC_SUPER).u2(thisClass).u2(superClass);
+        // 没有接口、字段和类属性
+        out.u2(0).u2(0);
+        out.u2(3).bytes(methods);
+        out.u2(0);
+        return out.toByteArray();
+    }
+
+    private static void method(ByteVector methods, ConstantPool pool, int access, String name, String descriptor,
+                               int maxStack, int maxLocals, ByteVector code) {
+        methods.u2(access).u2(pool.utf8(name)).u2(pool.utf8(descriptor)).u2(1);
+        methods.u2(pool.utf8("Code")).u4(12 + code.length);
+        methods.u2(maxStack).u2(maxLocals).u4(code.length).bytes(code);
+        // 没有异常表和属性
+        methods.u2(0).u2(0);
+    }
+
+    /**
+     * 依次写入每个字段，基本类型和String不经过Adapter
+     */
+    private static ByteVector writeCode(ConstantPool pool, int typeClass, Field[] fields, Class<?> host) {
+        ByteVector code = new ByteVector();
+        code.u1(ALOAD_2).u1(CHECKCAST).u2(typeClass).u1(ASTORE_3);
+        for (int i = 0; i < fields.length; i++) {
+            Field field = fields[i];
+            code.u1(ALOAD_0).u1(ALOAD_1);
+            pushInt(code, i);
+            code.u1(ALOAD_3);
+            String kind = field == null || !canGet(field, host) ? null : valueDescriptor(field.getType());
+            if (kind == null) {
+                code.u1(INVOKEVIRTUAL).u2(pool.methodRef(CODEC, "writeField", "(" + WRITER + "I" + OBJECT + ")V"));
+                continue;
+            }
+            code.u1(GETFIELD).u2(fieldRef(pool, field));
+            code.u1(INVOKEVIRTUAL).u2(pool.methodRef(CODEC, writeMethod(kind), "(" + WRITER + "I" + kind + ")V"));
+        }
+        code.u1(RETURN);
+        return code;
+    }
+
+    /**
+     * <pre>
+     * int expected = 0;
+     * while (hasNext(reader)) {
+     *     int index = nextName(reader, expected);
+     *     switch (index) {
+     *         case 0:
+     *             obj.a = readInt(reader);
+     *             expected = 1;
+     *             continue;
+     *         ...
+     *         default:
+     *             skipValue(reader);
+     *     }
+     * }
+     * </pre>
+     */
+    private static ByteVector readCode(ConstantPool pool, int typeClass, Field[] fields, Class<?> host) {
+        ByteVector code = new ByteVector();
+        code.u1(ALOAD_2).u1(CHECKCAST).u2(typeClass).u1(ASTORE_3);
+        code.u1(ICONST_0).u1(ISTORE).u1(EXPECTED);
+
+        int loop = code.length;
+        code.u1(ALOAD_0).u1(ALOAD_1).u1(INVOKEVIRTUAL).u2(pool.methodRef(CODEC, "hasNext", "(" + READER + ")Z"));
+        int exit = code.length;
+        code.u1(IFEQ).u2(0);
+        code.u1(ALOAD_0).u1(ALOAD_1).u1(ILOAD).u1(EXPECTED);
+        code.u1(INVOKEVIRTUAL).u2(pool.methodRef(CODEC, "nextName", "(" + READER + "I)I"));
+
+        int[] cases = new int[fields.length];
+        int tableswitch = -1;
+        if (fields.length == 0) {
+            code.u1(POP);
+        } else {
+            code.u1(ISTORE).u1(INDEX).u1(ILOAD).u1(INDEX);
+            tableswitch = code.length;
+            code.u1(TABLESWITCH);
+            while (code.length % 4 != 0) {
+                code.u1(0);
+            }
+            // default、low、high和每个case的偏移量，稍后回填
+            code.u4(0).u4(0).u4(fields.length - 1);
+            for (int i = 0; i < fields.length; i++) {
+                code.u4(0);
+            }
+            for (int i = 0; i < fields.length; i++) {
+                cases[i] = code.length;
+                readField(code, pool, fields[i], i, host);
+                pushInt(code, i + 1);
+                code.u1(ISTORE).u1(EXPECTED);
+                jump(code, GOTO, loop);
+            }
+        }
+
+        int skip = code.length;
+        code.u1(ALOAD_0).u1(ALOAD_1).u1(INVOKEVIRTUAL).u2(pool.methodRef(CODEC, "skipValue", "(" + READER + ")V"));
+        jump(code, GOTO, loop);
+
+        int end = code.length;
+        code.u1(RETURN);
+
+        code.u2At(exit + 1, end - exit);
+        if (tableswitch >= 0) {
+            int table = (tableswitch + 4) & ~3;
+            code.u4At(table, skip - tableswitch);
+            for (int i = 0; i < fields.length; i++) {
+                code.u4At(table + 12 + 4 * i, cases[i] - tableswitch);
+            }
+        }
+        return code;
+    }
+
+    private static void readField(ByteVector code, ConstantPool pool, Field field, int index, Class<?> host) {
+        String kind = field == null || Modifier.isFinal(field.getModifiers()) || !canGet(field, host)
+                ? null : valueDescriptor(field.getType());
+        if (OBJECT.equals(kind) && field.getType() != Object.class && !canReference(field.getType(), host)) {
+            // 无法转换为字段的类型
+            kind = null;
+        }
+        if (kind == null) {
+            code.u1(ALOAD_0).u1(ALOAD_1);
+            pushInt(code, index);
+            code.u1(ALOAD_3).u1(INVOKEVIRTUAL).u2(pool.methodRef(CODEC, "readField", "(" + READER + "I" + OBJECT + ")V"));
+            return;
+        }
+        code.u1(ALOAD_3).u1(ALOAD_0).u1(ALOAD_1);
+        if (OBJECT.equals(kind)) {
+            // 与反射时一样把字段当前的值传给Adapter
+            pushInt(code, index);
+            code.u1(ALOAD_3).u1(GETFIELD).u2(fieldRef(pool, field));
+            code.u1(INVOKEVIRTUAL).u2(pool.methodRef(CODEC, "readObject", "(" + READER + "I" + OBJECT + ")" + OBJECT));
+            if (field.getType() != Object.class) {
+                code.u1(CHECKCAST).u2(pool.classRef(internalName(field.getType().getName())));
+            }
+        } else {
+            String descriptor = descriptor(field.getType());
+            code.u1(INVOKEVIRTUAL).u2(pool.methodRef(CODEC, readMethod(descriptor), "(" + READER + ")" + descriptor));
+        }
+        code.u1(PUTFIELD).u2(fieldRef(pool, field));
+    }
+
+    private static void jump(ByteVector code, int opcode, int target) {
+        int offset = target - code.length;
+        code.u1(opcode).u2(offset);
+    }
+
+    private static void pushInt(ByteVector code, int value) {
+        if (value <= 5) {
+            code.u1(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            code.u1(BIPUSH).u1(value);
+        } else {
+            code.u1(SIPUSH).u2(value);
+        }
+    }
+
+    /**
+     * 字段的值在栈上的类型对应的write方法参数类型，byte字段经过Adapter检查范围，返回null
+     */
+    private static String valueDescriptor(Class<?> type) {
+        if (type == int.class || type == short.class || type == char.class) {
+            return "I";
+        } else if (type == byte.class) {
+            return null;
+        } else if (type.isPrimitive()) {
+            return descriptor(type);
+        } else if (type == String.class) {
+            return STRING;
+        }
+        return OBJECT;
+    }
+
+    private static String writeMethod(String kind) {
+        switch (kind) {
+            case "I":
+                return "writeInt";
+            case "J":
+                return "writeLong";
+            case "F":
+                return "writeFloat";
+            case "D":
+                return "writeDouble";
+            case "Z":
+                return "writeBoolean";
+            case STRING:
+                return "writeString";
+            default:
+                return "writeObject";
+        }
+    }
+
+    private static String readMethod(String descriptor) {
+        switch (descriptor) {
+            case "I":
+                return "readInt";
+            case "J":
+                return "readLong";
+            case "S":
+                return "readShort";
+            case "C":
+                return "readChar";
+            case "F":
+                return "readFloat";
+            case "D":
+                return "readDouble";
+            case "Z":
+                return "readBoolean";
+            default:
+                return "readString";
+        }
+    }
+
+    /**
+     * 通过声明该字段的类引用字段，子类中的同名字段不会遮蔽父类的字段
+     */
+    private static int fieldRef(ConstantPool pool, Field field) {
+        return pool.fieldRef(internalName(field.getDeclaringClass().getName()), field.getName(), descriptor(field.getType()));
+    }
+
+    private static boolean canGet(Field field, Class<?> host) {
+        Class<?> owner = field.getDeclaringClass();
+        int modifiers = field.getModifiers();
+        if (!canReference(owner, host)) {
+            return false;
+        }
+        if (Modifier.isPublic(modifiers)) {
+            return true;
+        }
+        if (host == null) {
+            return false;
+        }
+        // 生成的类是host的nestmate，但不是父类的nestmate，也不是任何类的子类
+        return Modifier.isPrivate(modifiers) ? owner == host : samePackage(owner, host);
+    }
+
+    /**
+     * 生成的类能否在常量池中引用该类型
+     */
+    private static boolean canReference(Class<?> type, Class<?> host) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive() || host != null && samePackage(type, host)) {
+            return true;
+        }
+        // 成员类的protected在class文件中是public，private是包级别
+        int modifiers = type.getModifiers();
+        return (Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)) && isExported(type);
+    }
+
+    private static boolean samePackage(Class<?> a, Class<?> b) {
+        return a.getClassLoader() == b.getClassLoader() && packageName(a).equals(packageName(b));
+    }
+
+    private static boolean isExported(Class<?> type) {
+        if (GET_MODULE == null) {
+            return true;
+        }
+        try {
+            return (Boolean) IS_EXPORTED.invoke(GET_MODULE.invoke(type), packageName(type));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static String packageName(Class<?> type) {
+        String name = type.getName();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(0, dot);
+    }
+
+    private static String internalName(String name) {
+        return name.replace('.', '/');
+    }
+
+    private static String descriptor(Class<?> type) {
+        if (type == int.class) {
+            return "I";
+        } else if (type == long.class) {
+            return "J";
+        } else if (type == short.class) {
+            return "S";
+        } else if (type == char.class) {
+            return "C";
+        } else if (type == float.class) {
+            return "F";
+        } else if (type == double.class) {
+            return "D";
+        } else if (type == boolean.class) {
+            return "Z";
+        } else if (type == byte.class) {
+            return "B";
+        } else if (type.isArray()) {
+            return internalName(type.getName());
+        }
+        return "L" + internalName(type.getName()) + ";";
+    }
+
+    /**
+     * 按需增长的字节数组，按大端序写入
+     */
+    private static final class ByteVector {
+
+        private byte[] data = new byte[256];
+        private int length;
+
+        ByteVector u1(int value) {
+            ensure(1);
+            data[length++] = (byte) value;
+            return this;
+        }
+
+        ByteVector u2(int value) {
+            ensure(2);
+            data[length++] = (byte) (value >>> 8);
+            data[length++] = (byte) value;
+            return this;
+        }
+
+        ByteVector u4(int value) {
+            ensure(4);
+            u4At(length, value);
+            length += 4;
+            return this;
+        }
+
+        ByteVector bytes(ByteVector other) {
+            ensure(other.length);
+            System.arraycopy(other.data, 0, data, length, other.length);
+            length += other.length;
+            return this;
+        }
+
+        void u2At(int position, int value) {
+            data[position] = (byte) (value >>> 8);
+            data[position + 1] = (byte) value;
+        }
+
+        void u4At(int position, int value) {
+            data[position] = (byte) (value >>> 24);
+            data[position + 1] = (byte) (value >>> 16);
+            data[position + 2] = (byte) (value >>> 8);
+            data[position + 3] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+
+        private void ensure(int n) {
+            if (length + n > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + n));
+            }
+        }
+
+    }
+
+    /**
+     * class文件的常量池，相同的常量只写入一次
+     */
+    private static final class ConstantPool {
+
+        private static final int UTF8 = 1;
+        private static final int CLASS = 7;
+        private static final int FIELD_REF = 9;
+        private static final int METHOD_REF = 10;
+        private static final int NAME_AND_TYPE = 12;
+
+        private final ByteVector bytes = new ByteVector();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        /**
+         * 常量数量加1，常量的下标从1开始
+         */
+        private int count = 1;
+
+        /**
+         * 以class文件使用的modified UTF-8编码写入，'\0'和补充字符的代理项分别编码
+         */
+        int utf8(String value) {
+            Integer index = indexes.get("U" + value);
+            if (index != null) {
+                return index;
+            }
+            ByteVector encoded = new ByteVector();
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c != 0 && c < 0x80) {
+                    encoded.u1(c);
+                } else if (c < 0x800) {
+                    encoded.u1(0xc0 | c >> 6).u1(0x80 | c & 0x3f);
+                } else {
+                    encoded.u1(0xe0 | c >> 12).u1(0x80 | c >> 6 & 0x3f).u1(0x80 | c & 0x3f);
+                }
+            }
+            bytes.u1(UTF8).u2(encoded.length).bytes(encoded);
+            return add("U" + value);
+        }
+
+        int classRef(String internalName) {
+            Integer index = indexes.get("C" + internalName);
+            if (index != null) {
+                return index;
+            }
+            int name = utf8(internalName);
+            bytes.u1(CLASS).u2(name);
+            return add("C" + internalName);
+        }
+
+        int fieldRef(String owner, String name, String descriptor) {
+            return memberRef(FIELD_REF, owner, name, descriptor);
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            return memberRef(METHOD_REF, owner, name, descriptor);
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) {
+            String key = tag + owner + '.' + name + ':' + descriptor;
+            Integer index = indexes.get(key);
+            if (index != null) {
+                return index;
+            }
+            int ownerIndex = classRef(owner);
+            int nameAndType = nameAndType(name, descriptor);
+            bytes.u1(tag).u2(ownerIndex).u2(nameAndType);
+            return add(key);
+        }
+
+        private int nameAndType(String name, String descriptor) {
+            String key = "N" + name + ':' + descriptor;
+            Integer index = indexes.get(key);
+            if (index != null) {
+                return index;
+            }
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            bytes.u1(NAME_AND_TYPE).u2(nameIndex).u2(descriptorIndex);
+            return add(key);
+        }
+
+        private int add(String key) {
+            indexes.put(key, count);
+            return count++;
+        }
+
+    }
+
+    /**
+     * java 15以下不能定义hidden class时使用的类加载器，每个生成的类一个，可以与被读写的类一起卸载
+     */
+    private static final class CodecLoader extends ClassLoader {
+
+        CodecLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        /**
+         * 被读写的类的类加载器看不到Zson时从Zson的类加载器中查找
+         */
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (name.startsWith("com.zpj.json.")) {
+                return CodecGenerator.class.getClassLoader().loadClass(name);
+            }
+            return super.findClass(name);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+
+    }
+
+}
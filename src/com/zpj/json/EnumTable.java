@@ -0,0 +1,112 @@
+package com.zpj.json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 一个枚举类的序列化名字表，每个枚举类只构建一次。
+ * 写入时按ordinal取出预先转义的名字，读取时直接用JsonReader缓冲区中的字符在NameTable中查找常量
+ */
+final class EnumTable {
+
+    private static final ClassValue<EnumTable> TABLES = new ClassValue<EnumTable>() {
+        @Override
+        protected EnumTable computeValue(Class<?> type) {
+            return new EnumTable(type);
+        }
+    };
+
+    /**
+     * 按ordinal保存的序列化名字
+     */
+    private final String[] names;
+
+    /**
+     * 按ordinal保存的转义后带引号的名字
+     */
+    private final String[] quotedNames;
+
+    /**
+     * 名字到constants下标的查找表，重名时以先声明的常量为准
+     */
+    private final NameTable table;
+    private final Object[] constants;
+
+    private EnumTable(Class<?> type) {
+        int count = type.getEnumConstants().length;
+        names = new String[count];
+        quotedNames = new String[count];
+        List<String> tableNames = new ArrayList<>();
+        List<Object> tableConstants = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (!field.isEnumConstant()) {
+                continue;
+            }
+            field.setAccessible(true);
+            Object constant;
+            try {
+                constant = field.get(null);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            String name = ReflectUtils.getSerializeName(field);
+            int ordinal = ((Enum<?>) constant).ordinal();
+            names[ordinal] = name;
+            quotedNames[ordinal] = quote(name);
+            if (seen.add(name)) {
+                tableNames.add(name);
+                tableConstants.add(constant);
+            }
+        }
+        table = new NameTable(tableNames.toArray(new String[0]));
+        constants = tableConstants.toArray();
+    }
+
+    private static String quote(String name) {
+        CharJsonWriter writer = new CharJsonWriter();
+        try {
+            writer.value(name);
+        } catch (IOException e) {
+            // 写入内存不会发生
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    static EnumTable of(Class<?> type) {
+        return TABLES.get(type);
+    }
+
+    /**
+     * 适用于带有类体的常量，这些常量的getClass()是枚举类的子类
+     */
+    static EnumTable of(Enum<?> constant) {
+        return TABLES.get(constant.getDeclaringClass());
+    }
+
+    String name(Enum<?> constant) {
+        return names[constant.ordinal()];
+    }
+
+    /**
+     * @return 转义后带引号的名字，可以直接写入json
+     */
+    String quotedName(Enum<?> constant) {
+        return quotedNames[constant.ordinal()];
+    }
+
+    /**
+     * 读取下一个名字对应的常量，没有对应的常量时返回null
+     */
+    Object read(JsonReader reader) {
+        int index = reader.nextName(table);
+        return index < 0 ? null : constants[index];
+    }
+
+}
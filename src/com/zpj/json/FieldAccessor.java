@@ -0,0 +1,319 @@
+package com.zpj.json;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * 字段访问器。基本类型字段通过getInt/setInt等方法读写，避免装箱。
+ * 默认基于MethodHandle实现，注解处理器生成的{@link GeneratedAdapter}则直接访问字段
+ */
+public abstract class FieldAccessor {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    static FieldAccessor of(Field field) {
+        return new MethodHandleAccessor(field);
+    }
+
+    public abstract Object get(Object obj);
+
+    public abstract void set(Object obj, Object value);
+
+    public int getInt(Object obj) {
+        return (Integer) get(obj);
+    }
+
+    public void setInt(Object obj, int value) {
+        set(obj, value);
+    }
+
+    public long getLong(Object obj) {
+        return (Long) get(obj);
+    }
+
+    public void setLong(Object obj, long value) {
+        set(obj, value);
+    }
+
+    public short getShort(Object obj) {
+        return (Short) get(obj);
+    }
+
+    public void setShort(Object obj, short value) {
+        set(obj, value);
+    }
+
+    public char getChar(Object obj) {
+        return (Character) get(obj);
+    }
+
+    public void setChar(Object obj, char value) {
+        set(obj, value);
+    }
+
+    public float getFloat(Object obj) {
+        return (Float) get(obj);
+    }
+
+    public void setFloat(Object obj, float value) {
+        set(obj, value);
+    }
+
+    public double getDouble(Object obj) {
+        return (Double) get(obj);
+    }
+
+    public void setDouble(Object obj, double value) {
+        set(obj, value);
+    }
+
+    public boolean getBoolean(Object obj) {
+        return (Boolean) get(obj);
+    }
+
+    public void setBoolean(Object obj, boolean value) {
+        set(obj, value);
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new RuntimeException(e);
+    }
+
+    /**
+     * 基于MethodHandle的字段访问器
+     */
+    private static final class MethodHandleAccessor extends FieldAccessor {
+
+        private final Field field;
+
+        /**
+         * 类型为(Object)Object的getter
+         */
+        private final MethodHandle getter;
+
+        /**
+         * 类型为(Object, Object)void的setter，无法通过MethodHandle写入时为null
+         */
+        private final MethodHandle setter;
+
+        /**
+         * 基本类型字段的getter和setter，类型分别为(Object)T和(Object, T)void，引用类型字段为null
+         */
+        private final MethodHandle primitiveGetter;
+        private final MethodHandle primitiveSetter;
+
+        MethodHandleAccessor(Field field) {
+            field.setAccessible(true);
+            this.field = field;
+            Class<?> type = field.getType();
+            MethodHandle get;
+            try {
+                get = LOOKUP.unreflectGetter(field);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Can not access field " + field, e);
+            }
+            MethodHandle set;
+            try {
+                set = LOOKUP.unreflectSetter(field);
+            } catch (IllegalAccessException e) {
+                // final字段在部分jdk版本上无法获取setter，回退到Field.set
+                set = null;
+            }
+            this.getter = get.asType(MethodType.methodType(Object.class, Object.class));
+            this.setter = set == null ? null : set.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            if (type.isPrimitive()) {
+                this.primitiveGetter = get.asType(MethodType.methodType(type, Object.class));
+                this.primitiveSetter = set == null ? null : set.asType(MethodType.methodType(void.class, Object.class, type));
+            } else {
+                this.primitiveGetter = null;
+                this.primitiveSetter = null;
+            }
+        }
+
+        @Override
+        public Object get(Object obj) {
+            try {
+                return (Object) getter.invokeExact(obj);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void set(Object obj, Object value) {
+            try {
+                if (setter == null) {
+                    field.set(obj, value);
+                } else {
+                    setter.invokeExact(obj, value);
+                }
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public int getInt(Object obj) {
+            try {
+                return (int) primitiveGetter.invokeExact(obj);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void setInt(Object obj, int value) {
+            try {
+                if (primitiveSetter == null) {
+                    field.setInt(obj, value);
+                } else {
+                    primitiveSetter.invokeExact(obj, value);
+                }
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public long getLong(Object obj) {
+            try {
+                return (long) primitiveGetter.invokeExact(obj);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void setLong(Object obj, long value) {
+            try {
+                if (primitiveSetter == null) {
+                    field.setLong(obj, value);
+                } else {
+                    primitiveSetter.invokeExact(obj, value);
+                }
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public short getShort(Object obj) {
+            try {
+                return (short) primitiveGetter.invokeExact(obj);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void setShort(Object obj, short value) {
+            try {
+                if (primitiveSetter == null) {
+                    field.setShort(obj, value);
+                } else {
+                    primitiveSetter.invokeExact(obj, value);
+                }
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public char getChar(Object obj) {
+            try {
+                return (char) primitiveGetter.invokeExact(obj);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void setChar(Object obj, char value) {
+            try {
+                if (primitiveSetter == null) {
+                    field.setChar(obj, value);
+                } else {
+                    primitiveSetter.invokeExact(obj, value);
+                }
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public float getFloat(Object obj) {
+            try {
+                return (float) primitiveGetter.invokeExact(obj);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void setFloat(Object obj, float value) {
+            try {
+                if (primitiveSetter == null) {
+                    field.setFloat(obj, value);
+                } else {
+                    primitiveSetter.invokeExact(obj, value);
+                }
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public double getDouble(Object obj) {
+            try {
+                return (double) primitiveGetter.invokeExact(obj);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void setDouble(Object obj, double value) {
+            try {
+                if (primitiveSetter == null) {
+                    field.setDouble(obj, value);
+                } else {
+                    primitiveSetter.invokeExact(obj, value);
+                }
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public boolean getBoolean(Object obj) {
+            try {
+                return (boolean) primitiveGetter.invokeExact(obj);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void setBoolean(Object obj, boolean value) {
+            try {
+                if (primitiveSetter == null) {
+                    field.setBoolean(obj, value);
+                } else {
+                    primitiveSetter.invokeExact(obj, value);
+                }
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.zpj.json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 预先转义并编码的字段名，包含完整的"name":，写入时整块复制到缓冲区
+ */
+final class FieldName {
+
+    final String name;
+
+    /**
+     * 转义后的"name":
+     */
+    final char[] chars;
+
+    /**
+     * chars的UTF-8编码
+     */
+    final byte[] utf8;
+
+    FieldName(String name) {
+        this.name = name;
+        CharJsonWriter writer = new CharJsonWriter();
+        try {
+            writer.name(name);
+        } catch (IOException e) {
+            // 写入内存不会发生
+            throw new UncheckedIOException(e);
+        }
+        String token = writer.toString();
+        this.chars = token.toCharArray();
+        this.utf8 = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
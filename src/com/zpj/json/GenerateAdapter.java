@@ -0,0 +1,17 @@
+package com.zpj.json;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 注解用以标注需要在编译期生成{@link GeneratedAdapter}的类。
+ * 生成的适配器不使用反射访问字段，Zson会优先使用它。
+ * 被标注的类需要有非private的无参构造函数且不能是泛型类；
+ * private字段需要提供非private的getter和setter，final字段只会被序列化
+ */
+@Target(value = ElementType.TYPE)
+@Retention(value = RetentionPolicy.CLASS)
+public @interface GenerateAdapter {
+}
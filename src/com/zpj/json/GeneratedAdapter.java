@@ -0,0 +1,73 @@
+package com.zpj.json;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+
+/**
+ * 由注解处理器在编译期为{@link GenerateAdapter}标注的类生成的适配器，
+ * 提供字段名、字段类型、字段访问器和构造方法，使Zson不需要通过反射解析该类。
+ * 生成的适配器通过ServiceLoader注册
+ *
+ * @param <T> 适配的类型
+ */
+public abstract class GeneratedAdapter<T> {
+
+    private final Class<T> type;
+    private final String[] names;
+    private final Type[] types;
+    private final FieldAccessor[] accessors;
+
+    /**
+     * @param type      适配的类型
+     * @param names     按声明顺序(子类到父类)排列的序列化名字
+     * @param types     与names对应的字段类型
+     * @param accessors 与names对应的字段访问器
+     */
+    protected GeneratedAdapter(Class<T> type, String[] names, Type[] types, FieldAccessor[] accessors) {
+        if (names.length != types.length || names.length != accessors.length) {
+            throw new IllegalArgumentException("The length of names, types and accessors must be equal!");
+        }
+        this.type = type;
+        this.names = names;
+        this.types = types;
+        this.accessors = accessors;
+    }
+
+    public final Class<T> getType() {
+        return type;
+    }
+
+    final String[] getNames() {
+        return names;
+    }
+
+    final Type[] getTypes() {
+        return types;
+    }
+
+    final FieldAccessor[] getAccessors() {
+        return accessors;
+    }
+
+    /**
+     * 通过反射访问字段，生成的代码无法直接写入的final字段使用此访问器，保持与反射时相同的行为
+     *
+     * @param owner 声明该字段的类
+     * @param name  字段名
+     */
+    protected static FieldAccessor reflectiveAccessor(Class<?> owner, String name) {
+        Field field;
+        try {
+            field = owner.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new RuntimeException("Can not find field " + name + " in " + owner.getName(), e);
+        }
+        return FieldAccessor.of(field);
+    }
+
+    /**
+     * 创建一个新的对象
+     */
+    public abstract T newInstance();
+
+}
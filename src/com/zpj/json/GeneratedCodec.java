@@ -0,0 +1,162 @@
+package com.zpj.json;
+
+/**
+ * codegen模式下由{@link CodecGenerator}在运行时为一个类生成的读写代码的父类。
+ * 子类按字段逐个展开读写，可以直接访问的字段通过getfield/putfield读写，
+ * 其余字段通过字段下标回到反射时使用的绑定信息。
+ * 生成的子类与被读写的类位于同一个包，所以需要是public的，但只能由Zson创建
+ */
+public abstract class GeneratedCodec {
+
+    /**
+     * 反射时一个字段的绑定信息，生成的代码不能直接访问的字段和引用类型的值通过它读写
+     */
+    interface Binding {
+
+        FieldName name();
+
+        /**
+         * 读取值并写入obj的字段
+         */
+        void read(JsonReader reader, Object obj) throws Exception;
+
+        /**
+         * 读取obj的字段并写入名字和值
+         */
+        void write(JsonWriter writer, Object obj) throws Exception;
+
+        /**
+         * 读取引用类型的值，current为字段当前的值
+         */
+        Object readValue(JsonReader reader, Object current) throws Exception;
+
+        /**
+         * 写入名字和引用类型的值
+         */
+        void writeValue(JsonWriter writer, Object value) throws Exception;
+
+    }
+
+    private NameTable table;
+    private FieldName[] names;
+    private Binding[] bindings;
+
+    protected GeneratedCodec() {
+
+    }
+
+    /**
+     * @param table    字段名到下标的查找表
+     * @param bindings 按下标排列的字段绑定信息
+     */
+    final void init(NameTable table, Binding[] bindings) {
+        this.table = table;
+        this.bindings = bindings;
+        this.names = new FieldName[bindings.length];
+        for (int i = 0; i < bindings.length; i++) {
+            names[i] = bindings[i].name();
+        }
+    }
+
+    /**
+     * 读取对象中的所有字段，不包括开始和结束的括号
+     */
+    protected abstract void read(JsonReader reader, Object obj) throws Exception;
+
+    /**
+     * 写入对象中的所有字段，不包括开始和结束的括号
+     */
+    protected abstract void write(JsonWriter writer, Object obj) throws Exception;
+
+    protected final boolean hasNext(JsonReader reader) {
+        return reader.hasNext();
+    }
+
+    /**
+     * @return 字段下标，未知字段为-1
+     */
+    protected final int nextName(JsonReader reader, int expected) {
+        return reader.nextName(table, expected);
+    }
+
+    protected final void skipValue(JsonReader reader) {
+        reader.skipValue();
+    }
+
+    protected final int readInt(JsonReader reader) {
+        return reader.nextInt();
+    }
+
+    protected final long readLong(JsonReader reader) {
+        return reader.nextLong();
+    }
+
+    protected final short readShort(JsonReader reader) {
+        int value = reader.nextInt();
+        if ((short) value != value) {
+            throw reader.syntaxError("Expected a short but was " + value);
+        }
+        return (short) value;
+    }
+
+    protected final char readChar(JsonReader reader) {
+        return (char) reader.nextInt();
+    }
+
+    protected final float readFloat(JsonReader reader) {
+        return reader.nextFloat();
+    }
+
+    protected final double readDouble(JsonReader reader) {
+        return reader.nextDouble();
+    }
+
+    protected final boolean readBoolean(JsonReader reader) {
+        return reader.nextBoolean();
+    }
+
+    protected final String readString(JsonReader reader) {
+        return reader.nextNull() ? null : reader.nextString();
+    }
+
+    protected final Object readObject(JsonReader reader, int field, Object current) throws Exception {
+        return bindings[field].readValue(reader, current);
+    }
+
+    protected final void readField(JsonReader reader, int field, Object obj) throws Exception {
+        bindings[field].read(reader, obj);
+    }
+
+    protected final void writeInt(JsonWriter writer, int field, int value) throws Exception {
+        writer.name(names[field]).value(value);
+    }
+
+    protected final void writeLong(JsonWriter writer, int field, long value) throws Exception {
+        writer.name(names[field]).value(value);
+    }
+
+    protected final void writeFloat(JsonWriter writer, int field, float value) throws Exception {
+        writer.name(names[field]).value(value);
+    }
+
+    protected final void writeDouble(JsonWriter writer, int field, double value) throws Exception {
+        writer.name(names[field]).value(value);
+    }
+
+    protected final void writeBoolean(JsonWriter writer, int field, boolean value) throws Exception {
+        writer.name(names[field]).value(value);
+    }
+
+    protected final void writeString(JsonWriter writer, int field, String value) throws Exception {
+        writer.name(names[field]).value(value);
+    }
+
+    protected final void writeObject(JsonWriter writer, int field, Object value) throws Exception {
+        bindings[field].writeValue(writer, value);
+    }
+
+    protected final void writeField(JsonWriter writer, int field, Object obj) throws Exception {
+        bindings[field].write(writer, obj);
+    }
+
+}
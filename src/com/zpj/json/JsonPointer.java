@@ -0,0 +1,317 @@
+package com.zpj.json;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的一组JSON Pointer(RFC 6901)，例如"/testBean2/a"、"/list/0"，""表示整个json。
+ * 多个pointer合并为一棵前缀树，一次扫描即可取出所有的值，其余的值直接跳过，全部找到后不再继续扫描。
+ * 构建后不可变，可被多个线程共享
+ */
+public final class JsonPointer {
+
+    private final String[] pointers;
+
+    private final Node root;
+
+    private JsonPointer(String[] pointers) {
+        this.pointers = pointers.clone();
+        List<String[]> paths = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < pointers.length; i++) {
+            paths.add(parse(pointers[i]));
+            ids.add(i);
+        }
+        this.root = new Node(paths, ids, 0);
+    }
+
+    /**
+     * 编译不会被缓存，需要反复使用同一个pointer时由调用者保存编译结果
+     *
+     * @param pointers 一个或多个pointer，结果按相同的顺序排列
+     */
+    public static JsonPointer compile(String... pointers) {
+        if (pointers.length == 0) {
+            throw new IllegalArgumentException("At least one pointer is required");
+        }
+        return new JsonPointer(pointers);
+    }
+
+    /**
+     * 拆分pointer并还原其中的"~1"和"~0"
+     */
+    private static String[] parse(String pointer) {
+        if (pointer.isEmpty()) {
+            return new String[0];
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new IllegalArgumentException("Invalid json pointer: " + pointer);
+        }
+        String[] tokens = pointer.substring(1).split("/", -1);
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.indexOf('~') < 0) {
+                continue;
+            }
+            StringBuilder builder = new StringBuilder(token.length());
+            for (int j = 0; j < token.length(); j++) {
+                char c = token.charAt(j);
+                if (c != '~') {
+                    builder.append(c);
+                } else if (j + 1 < token.length() && token.charAt(j + 1) == '0') {
+                    builder.append('~');
+                    j++;
+                } else if (j + 1 < token.length() && token.charAt(j + 1) == '1') {
+                    builder.append('/');
+                    j++;
+                } else {
+                    throw new IllegalArgumentException("Invalid json pointer: " + pointer);
+                }
+            }
+            tokens[i] = builder.toString();
+        }
+        return tokens;
+    }
+
+    /**
+     * @return pointer的数量
+     */
+    public int size() {
+        return pointers.length;
+    }
+
+    /**
+     * @return 第index个pointer
+     */
+    public String get(int index) {
+        return pointers[index];
+    }
+
+    @Override
+    public String toString() {
+        return pointers.length == 1 ? pointers[0] : String.join(", ", pointers);
+    }
+
+    /**
+     * 把reader移动到pointer指向的值之前，只扫描到该值为止。只用于单个pointer，此时每个节点最多有一个子节点
+     *
+     * @return 值不存在时返回false
+     */
+    boolean seek(JsonReader reader) {
+        if (pointers.length != 1) {
+            throw new IllegalArgumentException("Expected a single json pointer but was " + this);
+        }
+        Node node = root;
+        while (node.targets.length == 0) {
+            int child = 0;
+            int c = reader.peek();
+            if (c == '{') {
+                reader.beginObject();
+                while (true) {
+                    if (!reader.hasNext()) {
+                        return false;
+                    }
+                    if (reader.nextName(node.table) == child) {
+                        break;
+                    }
+                    reader.skipValue();
+                }
+            } else if (c == '[') {
+                reader.beginArray();
+                int target = node.indexes[child];
+                if (target < 0) {
+                    return false;
+                }
+                for (int i = 0; i < target; i++) {
+                    if (!reader.hasNext()) {
+                        return false;
+                    }
+                    reader.skipValue();
+                }
+                if (!reader.hasNext()) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+            node = node.children[child];
+        }
+        return true;
+    }
+
+    /**
+     * 一次扫描取出所有pointer指向的值的原始json文本，不存在的为null
+     */
+    String[] evaluate(JsonReader reader) {
+        String[] results = new String[pointers.length];
+        evaluate(reader, root, results, pointers.length);
+        return results;
+    }
+
+    /**
+     * @param remaining 还没有找到的值的数量
+     * @return 读取该值后还没有找到的值的数量，为0时调用者不再继续扫描
+     */
+    private static int evaluate(JsonReader reader, Node node, String[] results, int remaining) {
+        int found = 0;
+        for (int target : node.targets) {
+            // 重复的key以第一次出现的为准
+            if (results[target] == null) {
+                found++;
+            }
+        }
+        if (found == 0) {
+            return evaluateChildren(reader, node, results, remaining);
+        }
+        String raw;
+        if (node.children.length == 0) {
+            raw = reader.nextRaw();
+        } else {
+            // 同时需要该值本身和其中的值：先读取其中的值，该值本身的found个结果还没有找到，
+            // 所以evaluateChildren会读完整个值，结束后直接截取原始文本
+            if (reader.peek() == -1) {
+                throw reader.syntaxError("Unexpected end of json");
+            }
+            int start = reader.position();
+            remaining = evaluateChildren(reader, node, results, remaining);
+            raw = reader.rawSince(start);
+        }
+        for (int target : node.targets) {
+            if (results[target] == null) {
+                results[target] = raw;
+            }
+        }
+        return remaining - found;
+    }
+
+    /**
+     * 读取一个值，只进入node的子节点对应的对象字段或数组元素
+     */
+    private static int evaluateChildren(JsonReader reader, Node node, String[] results, int remaining) {
+        int c = reader.peek();
+        if (c == '{') {
+            reader.beginObject();
+            while (remaining > 0 && reader.hasNext()) {
+                int child = reader.nextName(node.table);
+                if (child < 0) {
+                    reader.skipValue();
+                } else {
+                    remaining = evaluate(reader, node.children[child], results, remaining);
+                }
+            }
+            if (remaining > 0) {
+                reader.endObject();
+            }
+        } else if (c == '[') {
+            reader.beginArray();
+            for (int i = 0; remaining > 0 && reader.hasNext(); i++) {
+                int child = node.childAt(i);
+                if (child < 0) {
+                    reader.skipValue();
+                } else {
+                    remaining = evaluate(reader, node.children[child], results, remaining);
+                }
+            }
+            if (remaining > 0) {
+                reader.endArray();
+            }
+        } else {
+            reader.skipValue();
+        }
+        return remaining;
+    }
+
+    /**
+     * 前缀树的一个节点，对应路径中的一段
+     */
+    private static final class Node {
+
+        /**
+         * 在该节点结束的pointer下标
+         */
+        final int[] targets;
+
+        final Node[] children;
+
+        /**
+         * 子节点名字的查找表，用于在对象中匹配
+         */
+        final NameTable table;
+
+        /**
+         * 子节点名字作为数组下标的值，不是合法的下标时为-1
+         */
+        final int[] indexes;
+
+        Node(List<String[]> paths, List<Integer> ids, int depth) {
+            List<Integer> targetList = new ArrayList<>();
+            Map<String, List<Integer>> groups = new LinkedHashMap<>();
+            for (int i = 0; i < paths.size(); i++) {
+                String[] path = paths.get(i);
+                if (path.length == depth) {
+                    targetList.add(ids.get(i));
+                } else {
+                    List<Integer> group = groups.get(path[depth]);
+                    if (group == null) {
+                        group = new ArrayList<>();
+                        groups.put(path[depth], group);
+                    }
+                    group.add(i);
+                }
+            }
+            this.targets = new int[targetList.size()];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = targetList.get(i);
+            }
+            String[] names = groups.keySet().toArray(new String[0]);
+            this.children = new Node[names.length];
+            this.indexes = new int[names.length];
+            int i = 0;
+            for (List<Integer> group : groups.values()) {
+                List<String[]> childPaths = new ArrayList<>();
+                List<Integer> childIds = new ArrayList<>();
+                for (int member : group) {
+                    childPaths.add(paths.get(member));
+                    childIds.add(ids.get(member));
+                }
+                children[i] = new Node(childPaths, childIds, depth + 1);
+                indexes[i] = arrayIndex(names[i]);
+                i++;
+            }
+            this.table = new NameTable(names);
+        }
+
+        /**
+         * RFC 6901中的数组下标是没有前导0的十进制数
+         */
+        private static int arrayIndex(String name) {
+            int length = name.length();
+            if (length == 0 || length > 9 || (length > 1 && name.charAt(0) == '0')) {
+                return -1;
+            }
+            for (int i = 0; i < length; i++) {
+                char c = name.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+            }
+            return Integer.parseInt(name);
+        }
+
+        /**
+         * @return 数组中第index个元素对应的子节点下标，没有时返回-1
+         */
+        int childAt(int index) {
+            for (int i = 0; i < indexes.length; i++) {
+                if (indexes[i] == index) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+    }
+
+}
@@ -0,0 +1,661 @@
+package com.zpj.json;
+
+/**
+ * json读取器。按下标扫描缓冲区，字段名和数字直接在缓冲区中解析，不创建中间字符串。
+ * 与之前的实现一样，读取时忽略空白字符以及','和':'
+ *
+ * @see CharJsonReader
+ * @see Utf8JsonReader
+ */
+abstract class JsonReader {
+
+    /**
+     * 10^0到10^22，这些值都可以用double精确表示
+     */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final float[] FLOAT_POW10 = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    protected int pos;
+    protected int limit;
+
+    /**
+     * 当前token的起始位置，没有时为-1。补充缓冲区时会保留mark之后的内容，使跨越窗口边界的token保持完整
+     */
+    protected int mark = -1;
+
+    /**
+     * 补充缓冲区时已经丢弃的字符数，用于报告错误位置
+     */
+    private long discarded;
+
+    /**
+     * 结构索引，为null时跳过空白、对象和数组需要逐个字符扫描
+     */
+    protected StructuralIndex index;
+
+    /**
+     * 当前正在读取的值需要绑定的路径，为null时绑定全部内容
+     */
+    Projection projection;
+
+    /**
+     * scanNumber的结果：数字等于(negativeNumber ? -1 : 1) * mantissa * 10^exponent
+     */
+    protected long mantissa;
+    protected int exponent;
+    protected boolean negativeNumber;
+
+    /**
+     * 返回缓冲区中下标为index的字符，UTF-8字节按无符号值返回。调用者保证index < limit
+     */
+    protected abstract int charAt(int index);
+
+    /**
+     * 保证pos之后至少有minimum个字符可读。mark之前(没有mark时为pos之前)的内容会被丢弃
+     *
+     * @return 没有足够的字符时返回false，json完整保存在内存中时总是返回false
+     */
+    protected abstract boolean fill(int minimum);
+
+    /**
+     * 将缓冲区中从start开始的length个字符创建为字符串
+     */
+    protected abstract String string(int start, int length);
+
+    /**
+     * 读取引号中的字符串，pos位于起始引号之后
+     */
+    protected abstract String readQuoted();
+
+    /**
+     * 读取下一个字段名，并在names中查找
+     *
+     * @return 字段名在names中的下标，不存在时返回-1
+     */
+    abstract int nextName(NameTable names);
+
+    /**
+     * 读取下一个字段名。先假设它是names中下标为expected的名字，直接与缓冲区比较，
+     * 按声明顺序输出的json不需要计算hash和查表，预测失败时与{@link #nextName(NameTable)}相同
+     *
+     * @return 字段名在names中的下标，不存在时返回-1
+     */
+    abstract int nextName(NameTable names, int expected);
+
+    /**
+     * 为完整保存在内存中的json建立结构索引，流式读取时不做任何事
+     */
+    abstract void buildIndex();
+
+    /**
+     * 返回下一个有效字符但不消费它，没有更多字符时返回-1。
+     * 建立了结构索引时，空白和分隔符之后的第一个有效字符就是索引中的下一个token，连续的空白(例如缩进)一次跳过
+     */
+    final int peek() {
+        while (pos < limit || fill(1)) {
+            int c = charAt(pos);
+            switch (c) {
+                case ':':
+                case ',':
+                case ' ':
+                case '\n':
+                case '\t':
+                case '\r':
+                    pos = index == null ? pos + 1 : index.nextToken(pos);
+                    continue;
+                default:
+                    return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 下一个值为null时消费它并返回true
+     */
+    final boolean nextNull() {
+        if (peek() == 'n' && (limit - pos >= 4 || fill(4))
+                && charAt(pos + 1) == 'u' && charAt(pos + 2) == 'l' && charAt(pos + 3) == 'l') {
+            pos += 4;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 读取下一个字符串，不带引号的值按原样返回
+     */
+    final String nextString() {
+        int c = peek();
+        if (c == '"') {
+            pos++;
+            return readQuoted();
+        } else if (c == -1) {
+            throw syntaxError("Expected a string");
+        }
+        mark = pos;
+        skipLiteral();
+        String value = string(mark, pos - mark);
+        mark = -1;
+        return value;
+    }
+
+    /**
+     * 读取转义字符，pos位于反斜杠之后
+     */
+    protected final char readEscape() {
+        if (pos >= limit && !fill(1)) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+        int c = charAt(pos++);
+        switch (c) {
+            case 'u':
+                if (limit - pos < 4 && !fill(4)) {
+                    throw syntaxError("Unterminated escape sequence");
+                }
+                int value = 0;
+                for (int end = pos + 4; pos < end; pos++) {
+                    int digit = hexDigit(charAt(pos));
+                    if (digit < 0) {
+                        throw syntaxError("Malformed unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            default:
+                // '"' '\\' '/'
+                return (char) c;
+        }
+    }
+
+    final boolean nextBoolean() {
+        boolean quoted = beginScalar();
+        boolean value;
+        if (matches("true")) {
+            value = true;
+            pos += 4;
+        } else if (matches("false")) {
+            value = false;
+            pos += 5;
+        } else {
+            throw syntaxError("Expected a boolean");
+        }
+        endScalar(quoted);
+        return value;
+    }
+
+    private boolean matches(String literal) {
+        int length = literal.length();
+        if (limit - pos < length && !fill(length)) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(pos + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 直接从缓冲区中累加数字，溢出时抛出异常
+     */
+    final long nextLong() {
+        boolean quoted = beginScalar();
+        boolean negative = false;
+        if ((pos < limit || fill(1)) && charAt(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+        int digits = 0;
+        // 按负数累加，以便可以表示Long.MIN_VALUE
+        long value = 0;
+        while (pos < limit || fill(1)) {
+            int digit = charAt(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            if (value < Long.MIN_VALUE / 10 || (value == Long.MIN_VALUE / 10 && digit > 8)) {
+                throw syntaxError("Number too large for a long");
+            }
+            value = value * 10 - digit;
+            digits++;
+            pos++;
+        }
+        if (digits == 0 || (pos < limit && isFractionOrExponent(charAt(pos)))) {
+            throw syntaxError("Expected a long");
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw syntaxError("Number too large for a long");
+            }
+            value = -value;
+        }
+        endScalar(quoted);
+        return value;
+    }
+
+    final double nextDouble() {
+        boolean quoted = beginScalar();
+        mark = pos;
+        double value = scanNumber() ? exactDouble() : Double.NaN;
+        if (value != value) {
+            // 有效数字超过18位、NaN等字面量以及少数无法确定舍入方向的情况
+            value = parseDouble();
+        }
+        mark = -1;
+        endScalar(quoted);
+        return value;
+    }
+
+    final float nextFloat() {
+        boolean quoted = beginScalar();
+        mark = pos;
+        float value = scanNumber() ? exactFloat() : Float.NaN;
+        if (value != value) {
+            // 有效数字超过18位、NaN等字面量以及少数无法确定舍入方向的情况
+            value = parseFloat();
+        }
+        mark = -1;
+        endScalar(quoted);
+        return value;
+    }
+
+    /**
+     * 由JDK解析从mark开始的数字，不能解析时抛出语法错误而不是NumberFormatException
+     */
+    private double parseDouble() {
+        String text = string(mark, pos - mark);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Malformed number " + text);
+        }
+    }
+
+    private float parseFloat() {
+        String text = string(mark, pos - mark);
+        try {
+            return Float.parseFloat(text);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Malformed number " + text);
+        }
+    }
+
+    /**
+     * 扫描一个数字，pos移动到数字之后。数字从mark开始
+     *
+     * @return 有效数字不超过18位时返回true，此时mantissa和exponent为精确值
+     */
+    private boolean scanNumber() {
+        negativeNumber = false;
+        if ((pos < limit || fill(1)) && charAt(pos) == '-') {
+            negativeNumber = true;
+            pos++;
+        }
+        long m = 0;
+        int digits = 0;
+        int exp = 0;
+        boolean exact = true;
+        boolean fraction = false;
+        // 整数部分和小数部分的位数，包括前导0
+        int integerDigits = 0;
+        int fractionDigits = 0;
+        while (pos < limit || fill(1)) {
+            int c = charAt(pos);
+            if (c >= '0' && c <= '9') {
+                if (fraction) {
+                    fractionDigits++;
+                } else {
+                    integerDigits++;
+                }
+                if (digits < 18) {
+                    m = m * 10 + (c - '0');
+                    if (m != 0) {
+                        digits++;
+                    }
+                    if (fraction) {
+                        exp--;
+                    }
+                } else {
+                    if (c != '0') {
+                        exact = false;
+                    }
+                    if (!fraction) {
+                        exp++;
+                    }
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        if (integerDigits == 0 && !fraction) {
+            // NaN、Infinity和-Infinity交给Double.parseDouble处理，其他字面量不是数字
+            if (pos == limit || (charAt(pos) != 'N' && charAt(pos) != 'I')) {
+                throw syntaxError("Malformed number");
+            }
+            skipLiteral();
+            return false;
+        }
+        if (integerDigits == 0 || (fraction && fractionDigits == 0)) {
+            // json不允许".5"和"1."
+            throw syntaxError("Malformed number");
+        }
+        if ((pos < limit || fill(1)) && (charAt(pos) == 'e' || charAt(pos) == 'E')) {
+            pos++;
+            boolean negativeExp = false;
+            if ((pos < limit || fill(1)) && (charAt(pos) == '-' || charAt(pos) == '+')) {
+                negativeExp = charAt(pos) == '-';
+                pos++;
+            }
+            int e = 0;
+            int expStart = pos;
+            while ((pos < limit || fill(1)) && charAt(pos) >= '0' && charAt(pos) <= '9') {
+                if (e < 100000) {
+                    e = e * 10 + (charAt(pos) - '0');
+                }
+                pos++;
+            }
+            if (expStart == pos) {
+                throw syntaxError("Malformed number");
+            }
+            exp += negativeExp ? -e : e;
+        }
+        mantissa = m;
+        exponent = exp;
+        return exact;
+    }
+
+    /**
+     * 允许数字和布尔值被引号包裹，例如Map的key
+     */
+    private boolean beginScalar() {
+        int c = peek();
+        if (c == -1) {
+            throw syntaxError("Unexpected end of json");
+        }
+        if (c == '"') {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void endScalar(boolean quoted) {
+        if (quoted) {
+            if ((pos >= limit && !fill(1)) || charAt(pos) != '"') {
+                throw syntaxError("Unterminated string");
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * 跳过下一个值，包括对象和数组。只记录嵌套深度和是否位于字符串中，不分配内存；
+     * 建立了结构索引时直接跳到对象或数组的结束括号
+     */
+    final void skipValue() {
+        int c = peek();
+        if (c == '{' || c == '[') {
+            if (index != null) {
+                int end = index.closing(pos);
+                if (end >= 0) {
+                    pos = end + 1;
+                    return;
+                }
+            }
+            pos++;
+            skipContainer();
+        } else if (c == '"') {
+            pos++;
+            skipQuoted();
+        } else if (c == -1) {
+            throw syntaxError("Unexpected end of json");
+        } else {
+            skipLiteral();
+        }
+    }
+
+    /**
+     * 跳过下一个值并返回它在json中的原始文本，对象和数组包含其中的空白字符
+     */
+    final String nextRaw() {
+        if (peek() == -1) {
+            throw syntaxError("Unexpected end of json");
+        }
+        mark = pos;
+        skipValue();
+        String value = string(mark, pos - mark);
+        mark = -1;
+        return value;
+    }
+
+    /**
+     * @return 当前读取位置，在{@link #peek()}之后调用时为下一个值的起始位置
+     */
+    final int position() {
+        return pos;
+    }
+
+    /**
+     * 返回从start到当前位置的原始文本。只用于完整保存在内存中的json，流式读取时start之前的内容可能已经被丢弃
+     */
+    final String rawSince(int start) {
+        return string(start, pos - start);
+    }
+
+    /**
+     * 跳过对象或数组的剩余部分，pos位于开括号之后。只记录嵌套深度，字符串交给skipQuoted
+     */
+    private void skipContainer() {
+        int p = pos;
+        int l = limit;
+        int depth = 1;
+        while (true) {
+            if (p == l) {
+                pos = p;
+                if (!fill(1)) {
+                    throw syntaxError("Unexpected end of json");
+                }
+                p = pos;
+                l = limit;
+            }
+            int c = charAt(p++);
+            if (c == '"') {
+                pos = p;
+                skipQuoted();
+                p = pos;
+                l = limit;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                pos = p;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 跳过字符串的剩余部分，pos位于起始引号之后
+     */
+    private void skipQuoted() {
+        int p = pos;
+        int l = limit;
+        while (true) {
+            if (p == l) {
+                pos = p;
+                if (!fill(1)) {
+                    throw syntaxError("Unterminated string");
+                }
+                p = pos;
+                l = limit;
+            }
+            int c = charAt(p++);
+            if (c == '"') {
+                pos = p;
+                return;
+            } else if (c == '\\') {
+                if (p == l) {
+                    pos = p;
+                    if (!fill(1)) {
+                        throw syntaxError("Unterminated string");
+                    }
+                    p = pos;
+                    l = limit;
+                }
+                p++;
+            }
+        }
+    }
+
+    /**
+     * 跳过不带引号的字面量
+     */
+    private void skipLiteral() {
+        while (pos < limit || fill(1)) {
+            switch (charAt(pos)) {
+                case ':':
+                case ',':
+                case '}':
+                case ']':
+                case ' ':
+                case '\n':
+                case '\t':
+                case '\r':
+                    return;
+                default:
+                    pos++;
+            }
+        }
+    }
+
+    /**
+     * 当前对象或数组中是否还有元素
+     */
+    boolean hasNext() {
+        int c = peek();
+        return c != '}' && c != ']' && c != -1;
+    }
+
+    void beginObject() {
+        expect('{');
+    }
+
+    void endObject() {
+        expect('}');
+    }
+
+    void beginArray() {
+        expect('[');
+    }
+
+    void endArray() {
+        expect(']');
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw syntaxError("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    int nextInt() {
+        long value = nextLong();
+        if ((int) value != value) {
+            throw syntaxError("Expected an int but was " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * mantissa和10^|exponent|都可以被double精确表示时，一次乘除即可得到正确舍入的结果
+     *
+     * @return 是否可以使用该快速路径
+     */
+    protected final boolean isFastDouble() {
+        return mantissa <= (1L << 53) && exponent >= -22 && exponent <= 22;
+    }
+
+    protected final double fastDouble() {
+        double value = exponent >= 0 ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+        return negativeNumber ? -value : value;
+    }
+
+    protected final boolean isFastFloat() {
+        return mantissa <= (1L << 24) && exponent >= -10 && exponent <= 10;
+    }
+
+    protected final float fastFloat() {
+        float value = exponent >= 0 ? mantissa * FLOAT_POW10[exponent] : mantissa / FLOAT_POW10[-exponent];
+        return negativeNumber ? -value : value;
+    }
+
+    /**
+     * 将scanNumber得到的精确值转换为double，先尝试一次乘除的快速路径，再使用Eisel-Lemire算法
+     *
+     * @return 无法确定舍入方向时返回NaN
+     */
+    protected final double exactDouble() {
+        return isFastDouble() ? fastDouble() : NumberParser.toDouble(mantissa, exponent, negativeNumber);
+    }
+
+    /**
+     * @return 无法确定舍入方向时返回NaN
+     * @see #exactDouble()
+     */
+    protected final float exactFloat() {
+        return isFastFloat() ? fastFloat() : NumberParser.toFloat(mantissa, exponent, negativeNumber);
+    }
+
+    private static boolean isFractionOrExponent(int c) {
+        return c == '.' || c == 'e' || c == 'E';
+    }
+
+    private static int hexDigit(int c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * 缓冲区前count个元素被丢弃后调整下标
+     */
+    protected final void shift(int count) {
+        pos -= count;
+        limit -= count;
+        if (mark >= 0) {
+            mark -= count;
+        }
+        discarded += count;
+    }
+
+    RuntimeException syntaxError(String message) {
+        return new RuntimeException("The format of json is incorrect! " + message + " index=" + (discarded + pos));
+    }
+
+}
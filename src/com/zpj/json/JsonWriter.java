@@ -0,0 +1,228 @@
+package com.zpj.json;
+
+import java.io.IOException;
+
+/**
+ * json写入器，只追加不回退，可以直接写入流。
+ * 每一层对象或数组记录是否已经写过元素，分隔符在写入元素之前按需输出，不会产生多余的逗号
+ *
+ * @see CharJsonWriter
+ * @see Utf8JsonWriter
+ */
+abstract class JsonWriter {
+
+    /**
+     * 流式写入时缓冲区的最小长度，至少可以容纳一个完整的数字
+     */
+    static final int MIN_BUFFER_SIZE = 64;
+
+    private static final String[] REPLACEMENT_CHARS;
+
+    static {
+        REPLACEMENT_CHARS = new String[128];
+        for (int i = 0; i <= 0x1f; i++) {
+            REPLACEMENT_CHARS[i] = String.format("\\u%04x", (int) i);
+        }
+        REPLACEMENT_CHARS['"'] = "\\\"";
+        REPLACEMENT_CHARS['\\'] = "\\\\";
+        REPLACEMENT_CHARS['\t'] = "\\t";
+        REPLACEMENT_CHARS['\b'] = "\\b";
+        REPLACEMENT_CHARS['\n'] = "\\n";
+        REPLACEMENT_CHARS['\r'] = "\\r";
+        REPLACEMENT_CHARS['\f'] = "\\f";
+    }
+
+    /**
+     * empty[depth]表示当前层还没有写入元素，empty[0]为最外层
+     */
+    private boolean[] empty = new boolean[32];
+    private int depth;
+
+    /**
+     * 刚写完字段名，下一个值之前不需要分隔符
+     */
+    private boolean afterName;
+
+    /**
+     * 格式化数字使用的缓冲区
+     */
+    private final char[] number = new char[NumberFormatter.MAX_LENGTH];
+
+    JsonWriter() {
+        empty[0] = true;
+    }
+
+    /**
+     * 写入一个字符
+     */
+    protected abstract void write(char c) throws IOException;
+
+    /**
+     * 写入s[start, end)之间的字符
+     */
+    protected abstract void write(String s, int start, int end) throws IOException;
+
+    /**
+     * 写入chars[offset, offset + length)之间的ASCII字符
+     */
+    protected abstract void write(char[] chars, int offset, int length) throws IOException;
+
+    /**
+     * 写入预先编码的"name":
+     */
+    protected abstract void write(FieldName name) throws IOException;
+
+    /**
+     * 将缓冲区中的内容写出到目标
+     */
+    abstract void flush() throws IOException;
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else if (empty[depth]) {
+            empty[depth] = false;
+        } else {
+            write(',');
+        }
+    }
+
+    private void push() {
+        if (++depth == empty.length) {
+            boolean[] newEmpty = new boolean[depth * 2];
+            System.arraycopy(empty, 0, newEmpty, 0, depth);
+            empty = newEmpty;
+        }
+        empty[depth] = true;
+    }
+
+    void beginObject() throws IOException {
+        beforeValue();
+        write('{');
+        push();
+    }
+
+    void endObject() throws IOException {
+        depth--;
+        write('}');
+    }
+
+    void beginArray() throws IOException {
+        beforeValue();
+        write('[');
+        push();
+    }
+
+    void endArray() throws IOException {
+        depth--;
+        write(']');
+    }
+
+    /**
+     * 写入字段名和':'，name会被转义
+     */
+    JsonWriter name(String name) throws IOException {
+        beforeValue();
+        writeString(name);
+        write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * 写入预先转义的"name":，只需要一次复制
+     */
+    JsonWriter name(FieldName name) throws IOException {
+        beforeValue();
+        write(name);
+        afterName = true;
+        return this;
+    }
+
+    void nullValue() throws IOException {
+        beforeValue();
+        write("null", 0, 4);
+    }
+
+    /**
+     * 写入转义后的字符串，value为null时写入null
+     */
+    void value(String value) throws IOException {
+        if (value == null) {
+            nullValue();
+            return;
+        }
+        beforeValue();
+        writeString(value);
+    }
+
+    /**
+     * 原样写入一个值，例如数字
+     */
+    void rawValue(String value) throws IOException {
+        beforeValue();
+        write(value, 0, value.length());
+    }
+
+    void value(int value) throws IOException {
+        beforeValue();
+        write(number, 0, NumberFormatter.formatInt(value, number, 0));
+    }
+
+    void value(long value) throws IOException {
+        beforeValue();
+        write(number, 0, NumberFormatter.formatLong(value, number, 0));
+    }
+
+    /**
+     * 写入能够精确还原value的最短表示
+     */
+    void value(float value) throws IOException {
+        beforeValue();
+        write(number, 0, NumberFormatter.formatFloat(value, number, 0));
+    }
+
+    /**
+     * 写入能够精确还原value的最短表示
+     */
+    void value(double value) throws IOException {
+        beforeValue();
+        write(number, 0, NumberFormatter.formatDouble(value, number, 0));
+    }
+
+    void value(boolean value) throws IOException {
+        rawValue(value ? "true" : "false");
+    }
+
+    private void writeString(String value) throws IOException {
+        write('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = REPLACEMENT_CHARS[c];
+                if (replacement == null) {
+                    continue;
+                }
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            if (last < i) {
+                write(value, last, i);
+            }
+            write(replacement, 0, replacement.length());
+            last = i + 1;
+        }
+        if (last < length) {
+            write(value, last, length);
+        }
+        write('"');
+    }
+
+}
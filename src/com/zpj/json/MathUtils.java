@@ -0,0 +1,35 @@
+package com.zpj.json;
+
+/**
+ * Java 8中没有的整数运算
+ */
+final class MathUtils {
+
+    private MathUtils() {
+
+    }
+
+    /**
+     * 两个有符号long相乘结果的高64位，等同于Java 9的Math.multiplyHigh
+     */
+    static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32;
+        long x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32;
+        long y2 = y & 0xFFFFFFFFL;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    /**
+     * 两个无符号long相乘结果的高64位，等同于Java 18的Math.unsignedMultiplyHigh
+     */
+    static long unsignedMultiplyHigh(long x, long y) {
+        return multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+}
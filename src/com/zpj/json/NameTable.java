@@ -0,0 +1,177 @@
+package com.zpj.json;
+
+/**
+ * 名字到下标的查找表，可以直接用JsonReader缓冲区中的字符查找，不需要先创建字符串。
+ * 使用与{@link String#hashCode()}相同的hash，开放寻址。
+ * 构建时会扩大表直到不同名字的hash不落在同一个位置，此时每次查找只需比较一次
+ */
+final class NameTable {
+
+    /**
+     * 为了消除冲突，表最多扩大到初始大小的倍数
+     */
+    private static final int MAX_GROWTH = 16;
+
+    private final char[][] names;
+
+    /**
+     * 名字可以不经转义直接与缓冲区比较，且查找该名字会得到同一个下标
+     */
+    private final boolean[] predictable;
+
+    /**
+     * 保存名字下标+1，0表示空位
+     */
+    private final int[] slots;
+    private final int mask;
+
+    /**
+     * @param names 名字数组，重复的名字以最后一个为准
+     */
+    NameTable(String[] names) {
+        this.names = new char[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            this.names[i] = names[i].toCharArray();
+        }
+        int size = 2;
+        while (size < names.length * 2) {
+            size <<= 1;
+        }
+        int maxSize = size * MAX_GROWTH;
+        while (size < maxSize && hasCollision(names, size - 1)) {
+            size <<= 1;
+        }
+        this.slots = new int[size];
+        this.mask = size - 1;
+        for (int i = 0; i < names.length; i++) {
+            int index = names[i].hashCode() & mask;
+            while (slots[index] != 0 && !names[slots[index] - 1].equals(names[i])) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = i + 1;
+        }
+        this.predictable = new boolean[names.length];
+        for (int i = 0; i < names.length; i++) {
+            predictable[i] = isPlain(this.names[i]) && find(names[i]) == i;
+        }
+    }
+
+    /**
+     * 是否有两个不同的名字落在同一个位置
+     */
+    private static boolean hasCollision(String[] names, int mask) {
+        String[] occupied = new String[mask + 1];
+        for (String name : names) {
+            int index = name.hashCode() & mask;
+            if (occupied[index] != null && !occupied[index].equals(name)) {
+                return true;
+            }
+            occupied[index] = name;
+        }
+        return false;
+    }
+
+    /**
+     * 只包含可打印的ASCII字符，且不含'"'和'\\'，这样的名字在json中的写法与名字本身相同
+     */
+    private static boolean isPlain(char[] name) {
+        for (char c : name) {
+            if (c < 0x20 || c >= 0x7F || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * 查找buf[start, start + length)对应的名字
+     *
+     * @param hash 该名字的{@link String#hashCode()}
+     * @return 名字的下标，不存在时返回-1
+     */
+    int find(char[] buf, int start, int length, int hash) {
+        int index = hash & mask;
+        int slot;
+        while ((slot = slots[index]) != 0) {
+            char[] name = names[slot - 1];
+            if (name.length == length && regionMatches(name, buf, start)) {
+                return slot - 1;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 查找UTF-8缓冲区buf[start, start + length)中的ASCII名字
+     *
+     * @param hash 该名字的{@link String#hashCode()}
+     * @return 名字的下标，不存在时返回-1
+     */
+    int find(byte[] buf, int start, int length, int hash) {
+        int index = hash & mask;
+        int slot;
+        while ((slot = slots[index]) != 0) {
+            char[] name = names[slot - 1];
+            if (name.length == length && regionMatches(name, buf, start)) {
+                return slot - 1;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 判断buf中从start开始的内容是否为带引号的第index个名字，用于预测下一个名字而不计算hash
+     *
+     * @param index 预测的名字下标
+     * @param buf   缓冲区，start处为起始引号，调用者保证至少有{@link #quotedLength(int)}个字符
+     */
+    boolean matchesQuoted(int index, char[] buf, int start) {
+        char[] name = names[index];
+        return buf[start + name.length + 1] == '"' && regionMatches(name, buf, start + 1);
+    }
+
+    /**
+     * @see #matchesQuoted(int, char[], int)
+     */
+    boolean matchesQuoted(int index, byte[] buf, int start) {
+        char[] name = names[index];
+        return buf[start + name.length + 1] == '"' && regionMatches(name, buf, start + 1);
+    }
+
+    /**
+     * @return 第index个名字加上两个引号的长度，该名字不能直接与缓冲区比较时返回-1
+     */
+    int quotedLength(int index) {
+        return index < names.length && predictable[index] ? names[index].length + 2 : -1;
+    }
+
+    int find(String name) {
+        char[] chars = name.toCharArray();
+        return find(chars, 0, chars.length, name.hashCode());
+    }
+
+    private static boolean regionMatches(char[] name, char[] buf, int start) {
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != buf[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(char[] name, byte[] buf, int start) {
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != buf[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,520 @@
+package com.zpj.json;
+
+import java.math.BigInteger;
+
+/**
+ * 将数字格式化到char数组中，不创建中间字符串。
+ * double和float使用Schubfach算法(Raffaello Giulietti, "The Schubfach way to render doubles")，
+ * 输出能够精确还原原值的最短十进制表示，格式与{@link Double#toString(double)}、{@link Float#toString(float)}相同：
+ * 10^-3 <= |v| < 10^7时为普通小数，否则为科学计数法
+ */
+final class NumberFormatter {
+
+    /**
+     * 任意数字格式化后的最大长度
+     */
+    static final int MAX_LENGTH = 32;
+
+    private static final int DOUBLE_P = 53;
+    private static final int DOUBLE_W = 11;
+    private static final int DOUBLE_Q_MIN = -1074;
+    private static final long DOUBLE_C_MIN = 1L << (DOUBLE_P - 1);
+    private static final long DOUBLE_C_TINY = 3;
+    private static final int DOUBLE_BQ_MASK = (1 << DOUBLE_W) - 1;
+    private static final long DOUBLE_T_MASK = (1L << (DOUBLE_P - 1)) - 1;
+    private static final int DOUBLE_H = 17;
+
+    private static final int FLOAT_P = 24;
+    private static final int FLOAT_W = 8;
+    private static final int FLOAT_Q_MIN = -149;
+    private static final int FLOAT_C_MIN = 1 << (FLOAT_P - 1);
+    private static final int FLOAT_C_TINY = 8;
+    private static final int FLOAT_BQ_MASK = (1 << FLOAT_W) - 1;
+    private static final int FLOAT_T_MASK = (1 << (FLOAT_P - 1)) - 1;
+    private static final int FLOAT_H = 9;
+
+    private static final long MASK_63 = (1L << 63) - 1;
+    private static final long MASK_32 = (1L << 32) - 1;
+    private static final int MASK_28 = (1 << 28) - 1;
+
+    /**
+     * g表覆盖的k的范围
+     */
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+
+    /**
+     * 对于每个k，令10^-k = β·2^r，2^125 <= β < 2^126，g = floor(β) + 1，
+     * g[2(k - K_MIN)]为g的高63位，g[2(k - K_MIN) + 1]为g的低63位
+     */
+    private static final long[] G = new long[2 * (K_MAX - K_MIN + 1)];
+
+    private static final long[] POW10 = new long[18];
+
+    private static final char[] DIGIT_TENS = new char[100];
+    private static final char[] DIGIT_ONES = new char[100];
+
+    static {
+        BigInteger mask63 = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = -k;
+            int r = flog2pow10(e) - 125;
+            BigInteger numerator = BigInteger.ONE;
+            BigInteger denominator = BigInteger.ONE;
+            if (e >= 0) {
+                numerator = BigInteger.TEN.pow(e);
+            } else {
+                denominator = BigInteger.TEN.pow(-e);
+            }
+            if (r >= 0) {
+                denominator = denominator.shiftLeft(r);
+            } else {
+                numerator = numerator.shiftLeft(-r);
+            }
+            BigInteger g = numerator.divide(denominator).add(BigInteger.ONE);
+            G[2 * (k - K_MIN)] = g.shiftRight(63).longValue();
+            G[2 * (k - K_MIN) + 1] = g.and(mask63).longValue();
+        }
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+        for (int i = 0; i < 100; i++) {
+            DIGIT_TENS[i] = (char) ('0' + i / 10);
+            DIGIT_ONES[i] = (char) ('0' + i % 10);
+        }
+    }
+
+    private NumberFormatter() {
+
+    }
+
+    /**
+     * 将value写入buf[index]开始的位置
+     *
+     * @return 写入后的位置
+     */
+    static int formatInt(int value, char[] buf, int index) {
+        if (value == Integer.MIN_VALUE) {
+            return formatLong(value, buf, index);
+        }
+        if (value < 0) {
+            buf[index++] = '-';
+            value = -value;
+        }
+        int end = index + intLength(value);
+        int pos = end;
+        while (value >= 100) {
+            int q = value / 100;
+            int r = value - q * 100;
+            value = q;
+            buf[--pos] = DIGIT_ONES[r];
+            buf[--pos] = DIGIT_TENS[r];
+        }
+        buf[--pos] = DIGIT_ONES[value];
+        if (value >= 10) {
+            buf[--pos] = DIGIT_TENS[value];
+        }
+        return end;
+    }
+
+    /**
+     * 将value写入buf[index]开始的位置
+     *
+     * @return 写入后的位置
+     */
+    static int formatLong(long value, char[] buf, int index) {
+        if ((int) value == value) {
+            if (value != Integer.MIN_VALUE) {
+                return formatInt((int) value, buf, index);
+            }
+        }
+        if (value == Long.MIN_VALUE) {
+            String s = "-9223372036854775808";
+            s.getChars(0, s.length(), buf, index);
+            return index + s.length();
+        }
+        if (value < 0) {
+            buf[index++] = '-';
+            value = -value;
+        }
+        int end = index + longLength(value);
+        int pos = end;
+        while (value > Integer.MAX_VALUE) {
+            long q = value / 100;
+            int r = (int) (value - q * 100);
+            value = q;
+            buf[--pos] = DIGIT_ONES[r];
+            buf[--pos] = DIGIT_TENS[r];
+        }
+        int v = (int) value;
+        while (v >= 100) {
+            int q = v / 100;
+            int r = v - q * 100;
+            v = q;
+            buf[--pos] = DIGIT_ONES[r];
+            buf[--pos] = DIGIT_TENS[r];
+        }
+        buf[--pos] = DIGIT_ONES[v];
+        if (v >= 10) {
+            buf[--pos] = DIGIT_TENS[v];
+        }
+        return end;
+    }
+
+    private static int intLength(int value) {
+        int length = 1;
+        for (int p = 10; length < 10 && value >= p; p *= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int longLength(long value) {
+        int length = 1;
+        for (long p = 10; length < 19 && value >= p; p *= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * 将value的最短表示写入buf[index]开始的位置
+     *
+     * @return 写入后的位置
+     */
+    static int formatDouble(double value, char[] buf, int index) {
+        long bits = Double.doubleToRawLongBits(value);
+        long t = bits & DOUBLE_T_MASK;
+        int bq = (int) (bits >>> (DOUBLE_P - 1)) & DOUBLE_BQ_MASK;
+        if (bq == DOUBLE_BQ_MASK) {
+            return special(t != 0 ? "NaN" : bits > 0 ? "Infinity" : "-Infinity", buf, index);
+        }
+        if (bits < 0) {
+            buf[index++] = '-';
+        }
+        if (bq != 0) {
+            // 正规数，mq = -q
+            int mq = -DOUBLE_Q_MIN + 1 - bq;
+            long c = DOUBLE_C_MIN | t;
+            if (0 < mq && mq < DOUBLE_P) {
+                // 整数的快速路径
+                long f = c >> mq;
+                if (f << mq == c) {
+                    return doubleChars(f, 0, buf, index);
+                }
+            }
+            return toDecimal(-mq, c, 0, buf, index);
+        }
+        if (t != 0) {
+            // 非正规数
+            return t < DOUBLE_C_TINY
+                    ? toDecimal(DOUBLE_Q_MIN, 10 * t, -1, buf, index)
+                    : toDecimal(DOUBLE_Q_MIN, t, 0, buf, index);
+        }
+        return special("0.0", buf, index);
+    }
+
+    private static int toDecimal(int q, long c, int dk, char[] buf, int index) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != DOUBLE_C_MIN || q == DOUBLE_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G[2 * (k - K_MIN)];
+        long g0 = G[2 * (k - K_MIN) + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // 先尝试少一位有效数字的结果
+            long sp10 = 10 * MathUtils.multiplyHigh(s, 115292150460684698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return doubleChars(upin ? sp10 : tp10, k, buf, index);
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return doubleChars(uin ? s : t, k + dk, buf, index);
+        }
+        long cmp = vb - ((s + t) << 1);
+        return doubleChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buf, index);
+    }
+
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = MathUtils.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = MathUtils.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+    }
+
+    /**
+     * 写入f·10^e
+     */
+    private static int doubleChars(long f, int e, char[] buf, int index) {
+        int len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POW10[len]) {
+            len += 1;
+        }
+        // 变换为0.f·10^e，10^(H-1) <= f < 10^H
+        f *= POW10[DOUBLE_H - len];
+        e += len;
+        // 将17位数字拆分为最高位h、中间8位m和最低8位l
+        long hm = MathUtils.multiplyHigh(f, 193428131138340668L) >>> 20;
+        int l = (int) (f - 100000000L * hm);
+        int h = (int) (hm * 1441151881L >>> 57);
+        int m = (int) (hm - 100000000 * h);
+        if (0 < e && e <= 7) {
+            return plainChars(h, m, l, e, buf, index);
+        } else if (-3 < e && e <= 0) {
+            return fractionChars(h, m, l, e, buf, index);
+        }
+        return scientificChars(h, m, l, e, buf, index);
+    }
+
+    /**
+     * 将value的最短表示写入buf[index]开始的位置
+     *
+     * @return 写入后的位置
+     */
+    static int formatFloat(float value, char[] buf, int index) {
+        int bits = Float.floatToRawIntBits(value);
+        int t = bits & FLOAT_T_MASK;
+        int bq = (bits >>> (FLOAT_P - 1)) & FLOAT_BQ_MASK;
+        if (bq == FLOAT_BQ_MASK) {
+            return special(t != 0 ? "NaN" : bits > 0 ? "Infinity" : "-Infinity", buf, index);
+        }
+        if (bits < 0) {
+            buf[index++] = '-';
+        }
+        if (bq != 0) {
+            int mq = -FLOAT_Q_MIN + 1 - bq;
+            int c = FLOAT_C_MIN | t;
+            if (0 < mq && mq < FLOAT_P) {
+                int f = c >> mq;
+                if (f << mq == c) {
+                    return floatChars(f, 0, buf, index);
+                }
+            }
+            return toDecimal(-mq, c, 0, buf, index);
+        }
+        if (t != 0) {
+            return t < FLOAT_C_TINY
+                    ? toDecimal(FLOAT_Q_MIN, 10 * t, -1, buf, index)
+                    : toDecimal(FLOAT_Q_MIN, t, 0, buf, index);
+        }
+        return special("0.0", buf, index);
+    }
+
+    private static int toDecimal(int q, int c, int dk, char[] buf, int index) {
+        int out = c & 0x1;
+        long cb = (long) c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != FLOAT_C_MIN || q == FLOAT_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+
+        long g = G[2 * (k - K_MIN)] + 1;
+
+        int vb = rop(g, cb << h);
+        int vbl = rop(g, cbl << h);
+        int vbr = rop(g, cbr << h);
+
+        int s = vb >> 2;
+        if (s >= 100) {
+            int sp10 = 10 * (int) (s * 1717986919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return floatChars(upin ? sp10 : tp10, k, buf, index);
+            }
+        }
+
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return floatChars(uin ? s : t, k + dk, buf, index);
+        }
+        int cmp = vb - ((s + t) << 1);
+        return floatChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buf, index);
+    }
+
+    private static int rop(long g, long cp) {
+        long x1 = MathUtils.multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | ((x1 & MASK_32) + MASK_32) >>> 32);
+    }
+
+    /**
+     * 写入f·10^e
+     */
+    private static int floatChars(int f, int e, char[] buf, int index) {
+        int len = flog10pow2(Integer.SIZE - Integer.numberOfLeadingZeros(f));
+        if (f >= POW10[len]) {
+            len += 1;
+        }
+        f *= (int) POW10[FLOAT_H - len];
+        e += len;
+        // 将9位数字拆分为最高位h和其余8位l
+        int h = (int) (f * 1441151881L >>> 57);
+        int l = f - 100000000 * h;
+        if (0 < e && e <= 7) {
+            return plainChars(h, l, 0, e, buf, index);
+        } else if (-3 < e && e <= 0) {
+            return fractionChars(h, l, 0, e, buf, index);
+        }
+        return scientificChars(h, l, 0, e, buf, index);
+    }
+
+    /**
+     * 0 < e <= 7，不带前导0的普通小数
+     */
+    private static int plainChars(int h, int m, int l, int e, char[] buf, int index) {
+        buf[index++] = (char) ('0' + h);
+        int y = y(m);
+        int i = 1;
+        for (; i < e; i++) {
+            int t = 10 * y;
+            buf[index++] = (char) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        buf[index++] = '.';
+        for (; i <= 8; i++) {
+            int t = 10 * y;
+            buf[index++] = (char) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        return lowDigits(l, buf, index);
+    }
+
+    /**
+     * -3 < e <= 0，带前导0的普通小数
+     */
+    private static int fractionChars(int h, int m, int l, int e, char[] buf, int index) {
+        buf[index++] = '0';
+        buf[index++] = '.';
+        for (; e < 0; e++) {
+            buf[index++] = '0';
+        }
+        buf[index++] = (char) ('0' + h);
+        index = append8Digits(m, buf, index);
+        return lowDigits(l, buf, index);
+    }
+
+    /**
+     * 科学计数法
+     */
+    private static int scientificChars(int h, int m, int l, int e, char[] buf, int index) {
+        buf[index++] = (char) ('0' + h);
+        buf[index++] = '.';
+        index = append8Digits(m, buf, index);
+        index = lowDigits(l, buf, index);
+        buf[index++] = 'E';
+        e -= 1;
+        if (e < 0) {
+            buf[index++] = '-';
+            e = -e;
+        }
+        if (e < 10) {
+            buf[index++] = (char) ('0' + e);
+            return index;
+        }
+        if (e >= 100) {
+            int d = e * 1311 >>> 17;
+            buf[index++] = (char) ('0' + d);
+            e -= 100 * d;
+        }
+        buf[index++] = DIGIT_TENS[e];
+        buf[index++] = DIGIT_ONES[e];
+        return index;
+    }
+
+    /**
+     * 写入最低8位数字(为0时不写)，然后去掉末尾的0，但保留小数点后的第一个0
+     */
+    private static int lowDigits(int l, char[] buf, int index) {
+        if (l != 0) {
+            index = append8Digits(l, buf, index);
+        }
+        while (buf[index - 1] == '0') {
+            index--;
+        }
+        if (buf[index - 1] == '.') {
+            index++;
+        }
+        return index;
+    }
+
+    private static int append8Digits(int m, char[] buf, int index) {
+        int y = y(m);
+        for (int i = 0; i < 8; i++) {
+            int t = 10 * y;
+            buf[index++] = (char) ('0' + (t >>> 28));
+            y = t & MASK_28;
+        }
+        return index;
+    }
+
+    /**
+     * floor((a + 1)·2^28 / 10^8) - 1，用于从左到右逐位取出a的8位数字
+     */
+    private static int y(int a) {
+        return (int) (MathUtils.multiplyHigh((long) (a + 1) << 28, 193428131138340668L) >>> 20) - 1;
+    }
+
+    private static int special(String s, char[] buf, int index) {
+        s.getChars(0, s.length(), buf, index);
+        return index + s.length();
+    }
+
+    /**
+     * floor(log10(2^e))
+     */
+    private static int flog10pow2(int e) {
+        return (int) (e * 661971961083L >> 41);
+    }
+
+    /**
+     * floor(log10(3/4 · 2^e))
+     */
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661971961083L + -274743187321L >> 41);
+    }
+
+    /**
+     * floor(log2(10^e))
+     */
+    private static int flog2pow10(int e) {
+        return (int) (e * 913124641741L >> 38);
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.zpj.json;
+
+import java.math.BigInteger;
+
+/**
+ * 将已经拆分为十进制尾数和指数的数字转换为double和float。
+ * 使用Eisel-Lemire算法(Daniel Lemire, "Number Parsing at a Gigabyte per Second")，
+ * 用128位的10的幂近似值做一次(偶尔两次)64位乘法得到正确舍入的结果，无法确定舍入方向时返回NaN，
+ * 由调用者交给{@link Double#parseDouble(String)}处理
+ */
+final class NumberParser {
+
+    /**
+     * 表覆盖的十进制指数范围，超出该范围的数字一定溢出为无穷大或下溢为0
+     */
+    private static final int MIN_EXP10 = -348;
+    private static final int MAX_EXP10 = 347;
+
+    /**
+     * 10^e的高128位(向下取整，最高位为1)，POWERS[2(e - MIN_EXP10)]为高64位，POWERS[2(e - MIN_EXP10) + 1]为低64位
+     */
+    private static final long[] POWERS = new long[2 * (MAX_EXP10 - MIN_EXP10 + 1)];
+
+    private static final int DOUBLE_EXPONENT_BIAS = 1023;
+    private static final int FLOAT_EXPONENT_BIAS = 127;
+
+    static {
+        BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int e = MIN_EXP10; e <= MAX_EXP10; e++) {
+            BigInteger value;
+            if (e >= 0) {
+                value = BigInteger.TEN.pow(e);
+                int shift = value.bitLength() - 128;
+                value = shift > 0 ? value.shiftRight(shift) : value.shiftLeft(-shift);
+            } else {
+                BigInteger denominator = BigInteger.TEN.pow(-e);
+                value = BigInteger.ONE.shiftLeft(denominator.bitLength() + 127).divide(denominator);
+            }
+            POWERS[2 * (e - MIN_EXP10)] = value.shiftRight(64).longValue();
+            POWERS[2 * (e - MIN_EXP10) + 1] = value.and(mask64).longValue();
+        }
+    }
+
+    private NumberParser() {
+
+    }
+
+    /**
+     * @return (negative ? -1 : 1) * mantissa * 10^exponent正确舍入后的double，无法确定时返回NaN
+     */
+    static double toDouble(long mantissa, int exponent, boolean negative) {
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (exponent < MIN_EXP10 || exponent > MAX_EXP10) {
+            return Double.NaN;
+        }
+        int clz = Long.numberOfLeadingZeros(mantissa);
+        long man = mantissa << clz;
+        long retExp2 = (217706L * exponent >> 16) + 64 + DOUBLE_EXPONENT_BIAS - clz;
+
+        int index = 2 * (exponent - MIN_EXP10);
+        long xHi = MathUtils.unsignedMultiplyHigh(man, POWERS[index]);
+        long xLo = man * POWERS[index];
+        if ((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + man, man) < 0) {
+            // 高64位的近似值不足以确定结果，加上低64位再试一次
+            long yHi = MathUtils.unsignedMultiplyHigh(man, POWERS[index + 1]);
+            long yLo = man * POWERS[index + 1];
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0) {
+                mergedHi++;
+            }
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo == -1 && Long.compareUnsigned(yLo + man, man) < 0) {
+                return Double.NaN;
+            }
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+
+        int msb = (int) (xHi >>> 63);
+        long retMantissa = xHi >>> (msb + 9);
+        retExp2 -= 1 ^ msb;
+        if (xLo == 0 && (xHi & 0x1FF) == 0 && (retMantissa & 3) == 1) {
+            // 恰好位于两个double中间
+            return Double.NaN;
+        }
+        retMantissa += retMantissa & 1;
+        retMantissa >>>= 1;
+        if (retMantissa >>> 53 > 0) {
+            retMantissa >>>= 1;
+            retExp2++;
+        }
+        if (retExp2 <= 0 || retExp2 >= 0x7FF) {
+            // 非正规数、溢出
+            return Double.NaN;
+        }
+        long bits = retExp2 << 52 | retMantissa & 0x000FFFFFFFFFFFFFL;
+        if (negative) {
+            bits |= Long.MIN_VALUE;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * @return (negative ? -1 : 1) * mantissa * 10^exponent正确舍入后的float，无法确定时返回NaN
+     */
+    static float toFloat(long mantissa, int exponent, boolean negative) {
+        if (mantissa == 0) {
+            return negative ? -0.0f : 0.0f;
+        }
+        if (exponent < MIN_EXP10 || exponent > MAX_EXP10) {
+            return Float.NaN;
+        }
+        int clz = Long.numberOfLeadingZeros(mantissa);
+        long man = mantissa << clz;
+        long retExp2 = (217706L * exponent >> 16) + 64 + FLOAT_EXPONENT_BIAS - clz;
+
+        int index = 2 * (exponent - MIN_EXP10);
+        long xHi = MathUtils.unsignedMultiplyHigh(man, POWERS[index]);
+        long xLo = man * POWERS[index];
+        if ((xHi & 0x3FFFFFFFFFL) == 0x3FFFFFFFFFL && Long.compareUnsigned(xLo + man, man) < 0) {
+            long yHi = MathUtils.unsignedMultiplyHigh(man, POWERS[index + 1]);
+            long yLo = man * POWERS[index + 1];
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0) {
+                mergedHi++;
+            }
+            if ((mergedHi & 0x3FFFFFFFFFL) == 0x3FFFFFFFFFL && mergedLo == -1
+                    && Long.compareUnsigned(yLo + man, man) < 0) {
+                return Float.NaN;
+            }
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+
+        int msb = (int) (xHi >>> 63);
+        long retMantissa = xHi >>> (msb + 38);
+        retExp2 -= 1 ^ msb;
+        if (xLo == 0 && (xHi & 0x3FFFFFFFFFL) == 0 && (retMantissa & 3) == 1) {
+            return Float.NaN;
+        }
+        retMantissa += retMantissa & 1;
+        retMantissa >>>= 1;
+        if (retMantissa >>> 24 > 0) {
+            retMantissa >>>= 1;
+            retExp2++;
+        }
+        if (retExp2 <= 0 || retExp2 >= 0xFF) {
+            return Float.NaN;
+        }
+        int bits = (int) (retExp2 << 23 | retMantissa & 0x007FFFFF);
+        if (negative) {
+            bits |= Integer.MIN_VALUE;
+        }
+        return Float.intBitsToFloat(bits);
+    }
+
+}
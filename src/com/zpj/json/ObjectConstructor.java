@@ -0,0 +1,201 @@
+package com.zpj.json;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * 对象构造器，每个类只创建一次。
+ * 接口和常见的抽象集合类型使用默认实现，其他类型通过MethodHandle调用无参构造方法，
+ * 没有无参构造方法时可以选择不调用构造方法直接分配对象
+ */
+abstract class ObjectConstructor {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * 接口和抽象类型到默认实现的构造器，只匹配完全相同的类型
+     */
+    private static final Map<Class<?>, ObjectConstructor> DEFAULTS = new HashMap<>();
+
+    /**
+     * 类型为(Class)Object的sun.misc.Unsafe.allocateInstance，不可用时为null
+     */
+    private static final MethodHandle ALLOCATE_INSTANCE;
+
+    static {
+        defaultImplementation(Collection.class, ArrayList::new);
+        defaultImplementation(List.class, ArrayList::new);
+        defaultImplementation(AbstractList.class, ArrayList::new);
+        defaultImplementation(SortedSet.class, TreeSet::new);
+        defaultImplementation(NavigableSet.class, TreeSet::new);
+        defaultImplementation(Set.class, LinkedHashSet::new);
+        defaultImplementation(AbstractSet.class, LinkedHashSet::new);
+        defaultImplementation(Queue.class, ArrayDeque::new);
+        defaultImplementation(Deque.class, ArrayDeque::new);
+        defaultImplementation(Map.class, LinkedHashMap::new);
+        defaultImplementation(AbstractMap.class, LinkedHashMap::new);
+        defaultImplementation(SortedMap.class, TreeMap::new);
+        defaultImplementation(NavigableMap.class, TreeMap::new);
+        defaultImplementation(ConcurrentMap.class, ConcurrentHashMap::new);
+        defaultImplementation(ConcurrentNavigableMap.class, ConcurrentSkipListMap::new);
+
+        MethodHandle allocate;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Method method = unsafeClass.getMethod("allocateInstance", Class.class);
+            allocate = LOOKUP.unreflect(method).bindTo(field.get(null))
+                    .asType(MethodType.methodType(Object.class, Class.class));
+        } catch (Exception e) {
+            allocate = null;
+        }
+        ALLOCATE_INSTANCE = allocate;
+    }
+
+    private static void defaultImplementation(Class<?> type, final Supplier<?> supplier) {
+        DEFAULTS.put(type, new ObjectConstructor() {
+            @Override
+            Object newInstance() {
+                return supplier.get();
+            }
+        });
+    }
+
+    /**
+     * 创建一个新的对象
+     */
+    abstract Object newInstance();
+
+    /**
+     * @param type        要创建的类型
+     * @param allowUnsafe 没有无参构造方法时是否不调用构造方法直接分配对象
+     */
+    static ObjectConstructor of(final Class<?> type, boolean allowUnsafe) {
+        ObjectConstructor constructor = DEFAULTS.get(type);
+        if (constructor != null) {
+            return constructor;
+        }
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isPrimitive() || type.isArray()) {
+            return unsupported(type, "abstract type");
+        }
+        try {
+            Constructor<?> c = type.getDeclaredConstructor();
+            c.setAccessible(true);
+            return new MethodHandleConstructor(LOOKUP.unreflectConstructor(c));
+        } catch (NoSuchMethodException e) {
+            if (allowUnsafe && ALLOCATE_INSTANCE != null) {
+                return new UnsafeConstructor(type);
+            }
+            return unsupported(type, "no no-arg constructor");
+        } catch (IllegalAccessException | RuntimeException e) {
+            return unsupported(type, e.toString());
+        }
+    }
+
+    /**
+     * 获取record类的规范构造方法
+     *
+     * @return 类型为(Object[])Object的MethodHandle，数组中按组件顺序保存所有参数
+     */
+    static MethodHandle canonicalConstructor(Class<?> type) {
+        Class<?>[] types = ReflectUtils.getRecordComponentTypes(type);
+        try {
+            Constructor<?> c = type.getDeclaredConstructor(types);
+            c.setAccessible(true);
+            return LOOKUP.unreflectConstructor(c)
+                    .asSpreader(Object[].class, types.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new RuntimeException("Can not access the canonical constructor of " + type.getName(), e);
+        }
+    }
+
+    static ObjectConstructor of(final GeneratedAdapter<?> adapter) {
+        return new ObjectConstructor() {
+            @Override
+            Object newInstance() {
+                return adapter.newInstance();
+            }
+        };
+    }
+
+    /**
+     * 无法创建的类型在真正需要创建对象时才报错，只用于序列化的类型不受影响
+     */
+    private static ObjectConstructor unsupported(final Class<?> type, final String reason) {
+        return new ObjectConstructor() {
+            @Override
+            Object newInstance() {
+                throw new RuntimeException("Unable to create an instance of " + type.getName() + ": " + reason);
+            }
+        };
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new RuntimeException(e);
+    }
+
+    /**
+     * 通过MethodHandle调用无参构造方法，只在创建时检查一次访问权限
+     */
+    private static final class MethodHandleConstructor extends ObjectConstructor {
+
+        /**
+         * 类型为()Object
+         */
+        private final MethodHandle handle;
+
+        MethodHandleConstructor(MethodHandle handle) {
+            this.handle = handle.asType(MethodType.methodType(Object.class));
+        }
+
+        @Override
+        Object newInstance() {
+            try {
+                return (Object) handle.invokeExact();
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+    /**
+     * 通过sun.misc.Unsafe分配对象，不调用任何构造方法，字段初始值都是默认值
+     */
+    private static final class UnsafeConstructor extends ObjectConstructor {
+
+        private final Class<?> type;
+
+        UnsafeConstructor(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        Object newInstance() {
+            try {
+                return (Object) ALLOCATE_INSTANCE.invokeExact(type);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+}
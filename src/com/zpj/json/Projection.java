@@ -0,0 +1,93 @@
+package com.zpj.json;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 反序列化时只绑定的字段路径集合，其余的值在扫描时直接跳过。
+ * 路径用'.'分隔，每一段是对象的字段名或Map的key，数组和集合对每个元素使用相同的路径。
+ * 例如Projection.of("bean.a", "map3.zpj")只读取bean中的a和map3中key为zpj的值。
+ * 一个路径选中的值会被完整读取，"bean"和"bean.a"同时存在时以"bean"为准。
+ * 构建后不可变，可被多个线程共享
+ */
+public final class Projection {
+
+    /**
+     * 子路径，为空时表示选中整个值
+     */
+    private final Map<String, Projection> children;
+
+    private Projection(List<String[]> paths, int depth) {
+        Map<String, List<String[]>> groups = new HashMap<>();
+        for (String[] path : paths) {
+            if (path.length == depth) {
+                // 选中了当前的整个值，忽略更深的路径
+                groups.clear();
+                break;
+            }
+            List<String[]> group = groups.get(path[depth]);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(path[depth], group);
+            }
+            group.add(path);
+        }
+        Map<String, Projection> map = new HashMap<>();
+        for (Map.Entry<String, List<String[]>> entry : groups.entrySet()) {
+            map.put(entry.getKey(), new Projection(entry.getValue(), depth + 1));
+        }
+        this.children = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @param paths 用'.'分隔的字段路径
+     */
+    public static Projection of(String... paths) {
+        if (paths.length == 0) {
+            throw new IllegalArgumentException("At least one path is required");
+        }
+        List<String[]> list = new ArrayList<>();
+        for (String path : paths) {
+            String[] segments = path.split("\\.", -1);
+            for (String segment : segments) {
+                if (segment.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid path: " + path);
+                }
+            }
+            list.add(segments);
+        }
+        return new Projection(list, 0);
+    }
+
+    /**
+     * 是否选中整个值
+     */
+    boolean isLeaf() {
+        return children.isEmpty();
+    }
+
+    /**
+     * @return 名字对应的子路径，没有被选中时返回null
+     */
+    Projection child(String name) {
+        return children.get(name);
+    }
+
+    /**
+     * 按字段顺序返回每个字段的子路径，没有被选中的字段为null。
+     * Projection不保存结果，由每个Zson的类绑定信息缓存
+     *
+     * @param names 字段名
+     */
+    Projection[] plan(String[] names) {
+        Projection[] plan = new Projection[names.length];
+        for (int i = 0; i < names.length; i++) {
+            plan[i] = children.get(names[i]);
+        }
+        return plan;
+    }
+
+}
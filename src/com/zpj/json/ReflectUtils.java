@@ -31,6 +31,35 @@ public final class ReflectUtils {
 
     private static final Type[] EMPTY_TYPE_ARRAY = new Type[]{};
 
+    /**
+     * Class.isRecord、Class.getRecordComponents、RecordComponent.getName和RecordComponent.getType，
+     * Java 16之前不存在，此时都为null
+     */
+    private static final Method IS_RECORD;
+    private static final Method GET_RECORD_COMPONENTS;
+    private static final Method COMPONENT_NAME;
+    private static final Method COMPONENT_TYPE;
+
+    static {
+        Method isRecord = null;
+        Method getRecordComponents = null;
+        Method componentName = null;
+        Method componentType = null;
+        try {
+            isRecord = Class.class.getMethod("isRecord");
+            getRecordComponents = Class.class.getMethod("getRecordComponents");
+            Class<?> componentClass = Class.forName("java.lang.reflect.RecordComponent");
+            componentName = componentClass.getMethod("getName");
+            componentType = componentClass.getMethod("getType");
+        } catch (ReflectiveOperationException e) {
+            isRecord = null;
+        }
+        IS_RECORD = isRecord;
+        GET_RECORD_COMPONENTS = getRecordComponents;
+        COMPONENT_NAME = componentName;
+        COMPONENT_TYPE = componentType;
+    }
+
     private ReflectUtils() {
         throw new UnsupportedOperationException();
     }
@@ -47,6 +76,60 @@ public final class ReflectUtils {
         return name;
     }
 
+    /**
+     * 是否为record类，运行在Java 16之前时总是返回false
+     */
+    static boolean isRecord(Class<?> type) {
+        if (IS_RECORD == null || type.getSuperclass() == null || !"java.lang.Record".equals(type.getSuperclass().getName())) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_RECORD.invoke(type);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 按声明顺序返回record类的组件名，与规范构造方法的参数顺序相同
+     */
+    static String[] getRecordComponentNames(Class<?> type) {
+        Object[] components = getRecordComponents(type);
+        String[] names = new String[components.length];
+        try {
+            for (int i = 0; i < components.length; i++) {
+                names[i] = (String) COMPONENT_NAME.invoke(components[i]);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+        return names;
+    }
+
+    /**
+     * 按声明顺序返回record类的组件类型，即规范构造方法的参数类型
+     */
+    static Class<?>[] getRecordComponentTypes(Class<?> type) {
+        Object[] components = getRecordComponents(type);
+        Class<?>[] types = new Class<?>[components.length];
+        try {
+            for (int i = 0; i < components.length; i++) {
+                types[i] = (Class<?>) COMPONENT_TYPE.invoke(components[i]);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+        return types;
+    }
+
+    private static Object[] getRecordComponents(Class<?> type) {
+        try {
+            return (Object[]) GET_RECORD_COMPONENTS.invoke(type);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Returns a new parameterized type, applying {@code typeArguments} to
      * {@code rawType} and enclosed by {@code ownerType}.
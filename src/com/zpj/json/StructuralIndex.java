@@ -0,0 +1,466 @@
+package com.zpj.json;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * json的结构索引，按顺序记录字符串之外每个token的起始位置：括号、字符串的起始引号，
+ * 以及数字、true、false、null等其他值的第一个字符。':'、','和空白不记录，两个相邻token之间只有这些字符。
+ * 开括号同时记录对应闭括号在索引中的下标，跳过一个对象或数组时可以直接跳到结束括号。
+ * <p>
+ * 建立索引时每次处理64个字符：先按字符宽度(byte每个long 8个、char每个long 4个)用SWAR
+ * (SIMD within a register)得到引号、反斜杠、括号和分隔符的位掩码，再由两者共用的{@link Scanner}
+ * 计算转义和字符串范围并输出token，结果与逐个字符扫描的{@link #ofScalar(byte[], int, int)}相同。
+ * 只适用于完整保存在内存中的json，读取器通过游标按顺序使用索引
+ */
+final class StructuralIndex {
+
+    private static final int BLOCK = 64;
+
+    private static final long LOW_BYTES = 0x7F7F7F7F7F7F7F7FL;
+    private static final long LOW_LANES = 0x7FFF7FFF7FFF7FFFL;
+
+    /**
+     * '['和'{'、']'和'}'只相差0x20这一位，置上该位后各比较一次即可
+     */
+    private static final char CASE_BIT = 0x20;
+
+    private static final int KIND_VALUE = 0;
+    private static final int KIND_OPEN = 1;
+    private static final int KIND_CLOSE = 2;
+
+    /**
+     * token的起始位置，从小到大排列，只有前count个有效
+     */
+    private final int[] positions;
+
+    /**
+     * 与positions对应：开括号为对应闭括号在positions中的下标+1，其他token以及没有闭合的开括号为0
+     */
+    private final int[] matches;
+    private final int count;
+
+    /**
+     * 建立索引的范围的结束位置
+     */
+    private final int end;
+
+    /**
+     * 上次查找得到的下标。读取位置总是向后移动，从这里开始通常只需要前进几步
+     */
+    private int cursor;
+
+    private StructuralIndex(int[] positions, int[] matches, int count, int end) {
+        this.positions = positions;
+        this.matches = matches;
+        this.count = count;
+        this.end = end;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return 第i个token的起始位置
+     */
+    int position(int i) {
+        return positions[i];
+    }
+
+    /**
+     * 返回position之后(包括position)的第一个token的起始位置。
+     * position位于两个token之间时，两者之间只有空白、':'和','，可以一次跳过
+     *
+     * @return 没有更多token时返回建立索引的范围的结束位置
+     */
+    int nextToken(int position) {
+        int i = seek(position);
+        return i < count ? positions[i] : end;
+    }
+
+    /**
+     * @param open 开括号的位置
+     * @return 对应闭括号的位置，open不是已闭合的开括号时返回-1
+     */
+    int closing(int open) {
+        int i = seek(open);
+        if (i < count && positions[i] == open) {
+            int match = matches[i] - 1;
+            if (match >= 0) {
+                cursor = match + 1;
+                return positions[match];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 第一个不小于position的token的下标，没有时返回count
+     */
+    private int seek(int position) {
+        int i = cursor;
+        if (i < count && positions[i] < position) {
+            int stop = Math.min(count, i + 8);
+            while (i < stop && positions[i] < position) {
+                i++;
+            }
+            if (i == stop && i < count && positions[i] < position) {
+                i = lowerBound(i, count, position);
+            }
+        } else if (i > 0 && positions[i - 1] >= position) {
+            i = lowerBound(0, i, position);
+        }
+        cursor = i;
+        return i;
+    }
+
+    private int lowerBound(int from, int to, int position) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (positions[mid] < position) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * 扫描UTF-8编码的buf[start, end)建立索引，每次读取8个字节
+     */
+    static StructuralIndex of(byte[] buf, int start, int end) {
+        Scanner scanner = new Scanner(end - start);
+        ByteBuffer words = ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+        int base = start;
+        for (; base <= end - BLOCK; base += BLOCK) {
+            long quote = 0;
+            long backslash = 0;
+            long open = 0;
+            long close = 0;
+            long separator = 0;
+            for (int shift = 0; shift < BLOCK; shift += 8) {
+                long word = words.getLong(base + shift);
+                long folded = word | 0x2020202020202020L;
+                quote |= byteMask(zeroBytes(word ^ 0x2222222222222222L)) << shift;
+                backslash |= byteMask(zeroBytes(word ^ 0x5C5C5C5C5C5C5C5CL)) << shift;
+                open |= byteMask(zeroBytes(folded ^ 0x7B7B7B7B7B7B7B7BL)) << shift;
+                close |= byteMask(zeroBytes(folded ^ 0x7D7D7D7D7D7D7D7DL)) << shift;
+                separator |= byteMask(zeroBytes(word ^ 0x2020202020202020L) | zeroBytes(word ^ 0x0A0A0A0A0A0A0A0AL)
+                        | zeroBytes(word ^ 0x0D0D0D0D0D0D0D0DL) | zeroBytes(word ^ 0x0909090909090909L)
+                        | zeroBytes(word ^ 0x3A3A3A3A3A3A3A3AL) | zeroBytes(word ^ 0x2C2C2C2C2C2C2C2CL)) << shift;
+            }
+            scanner.block(base, quote, backslash, open, close, separator, -1L);
+        }
+        scanner.tail(buf, base, end);
+        return scanner.build(end);
+    }
+
+    /**
+     * 扫描buf[start, end)建立索引，每次把4个char拼成一个long处理
+     */
+    static StructuralIndex of(char[] buf, int start, int end) {
+        Scanner scanner = new Scanner(end - start);
+        int base = start;
+        for (; base <= end - BLOCK; base += BLOCK) {
+            long quote = 0;
+            long backslash = 0;
+            long open = 0;
+            long close = 0;
+            long separator = 0;
+            for (int shift = 0; shift < BLOCK; shift += 4) {
+                int i = base + shift;
+                long word = buf[i] | (long) buf[i + 1] << 16 | (long) buf[i + 2] << 32 | (long) buf[i + 3] << 48;
+                long folded = word | 0x0020002000200020L;
+                quote |= laneMask(zeroLanes(word ^ 0x0022002200220022L)) << shift;
+                backslash |= laneMask(zeroLanes(word ^ 0x005C005C005C005CL)) << shift;
+                open |= laneMask(zeroLanes(folded ^ 0x007B007B007B007BL)) << shift;
+                close |= laneMask(zeroLanes(folded ^ 0x007D007D007D007DL)) << shift;
+                separator |= laneMask(zeroLanes(word ^ 0x0020002000200020L) | zeroLanes(word ^ 0x000A000A000A000AL)
+                        | zeroLanes(word ^ 0x000D000D000D000DL) | zeroLanes(word ^ 0x0009000900090009L)
+                        | zeroLanes(word ^ 0x003A003A003A003AL) | zeroLanes(word ^ 0x002C002C002C002CL)) << shift;
+            }
+            scanner.block(base, quote, backslash, open, close, separator, -1L);
+        }
+        scanner.tail(buf, base, end);
+        return scanner.build(end);
+    }
+
+    /**
+     * 逐个字节扫描，用于验证和对比{@link #of(byte[], int, int)}
+     */
+    static StructuralIndex ofScalar(byte[] buf, int start, int end) {
+        ScalarScanner scanner = new ScalarScanner(end - start);
+        for (int i = start; i < end; i++) {
+            scanner.next(i, buf[i]);
+        }
+        return scanner.build(end);
+    }
+
+    /**
+     * 逐个字符扫描，用于验证和对比{@link #of(char[], int, int)}
+     */
+    static StructuralIndex ofScalar(char[] buf, int start, int end) {
+        ScalarScanner scanner = new ScalarScanner(end - start);
+        for (int i = start; i < end; i++) {
+            scanner.next(i, buf[i]);
+        }
+        return scanner.build(end);
+    }
+
+    /**
+     * @return 值为0的字节对应的最高位为1，其余位为0。不会因借位产生误报
+     */
+    private static long zeroBytes(long word) {
+        long t = (word & LOW_BYTES) + LOW_BYTES;
+        return ~(t | word | LOW_BYTES);
+    }
+
+    /**
+     * 把每个字节的最高位收集到低8位
+     */
+    private static long byteMask(long bits) {
+        return ((bits >>> 7) * 0x0102040810204080L) >>> 56;
+    }
+
+    /**
+     * @return 值为0的16位lane对应的最高位为1，其余位为0
+     */
+    private static long zeroLanes(long word) {
+        long t = (word & LOW_LANES) + LOW_LANES;
+        return ~(t | word | LOW_LANES);
+    }
+
+    /**
+     * 把每个16位lane的最高位收集到低4位
+     */
+    private static long laneMask(long bits) {
+        return (((bits >>> 15) * 0x0000200040008001L) >>> 45) & 0xF;
+    }
+
+    private static boolean isSeparator(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ':' || c == ',';
+    }
+
+    /**
+     * 收集token并匹配括号，括号的种类不检查，多余的闭括号和没有闭合的开括号不会被匹配
+     */
+    private static class Collector {
+
+        private int[] positions;
+        private int[] matches;
+        private int count;
+
+        private int[] stack = new int[16];
+        private int depth;
+
+        Collector(int length) {
+            int capacity = Math.max(16, length >>> 3);
+            positions = new int[capacity];
+            matches = new int[capacity];
+        }
+
+        final void add(int position, int kind) {
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count << 1);
+                matches = Arrays.copyOf(matches, count << 1);
+            }
+            positions[count] = position;
+            if (kind == KIND_OPEN) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth << 1);
+                }
+                stack[depth++] = count;
+            } else if (kind == KIND_CLOSE && depth > 0) {
+                matches[stack[--depth]] = count + 1;
+            }
+            count++;
+        }
+
+        final StructuralIndex build(int end) {
+            return new StructuralIndex(positions, matches, count, end);
+        }
+    }
+
+    /**
+     * 按64个字符一块处理位掩码，byte和char的扫描共用。
+     * 反斜杠之后的字符被转义，不论是否位于字符串中；被转义的字符作为普通字符处理
+     */
+    private static final class Scanner extends Collector {
+
+        /**
+         * 上一块的最后一个字符是没有被转义的反斜杠时为1
+         */
+        private long escapeCarry;
+
+        /**
+         * 上一块结束时位于字符串中为-1，否则为0
+         */
+        private long stringCarry;
+
+        /**
+         * 上一块的最后一个字符属于数字等其他值时为1
+         */
+        private long valueCarry;
+
+        Scanner(int length) {
+            super(length);
+        }
+
+        /**
+         * @param base      第0位对应的位置
+         * @param valid     有效字符对应的位
+         * @param separator 空白、':'和','
+         */
+        void block(int base, long quote, long backslash, long open, long close, long separator, long valid) {
+            long escaped = escapeCarry;
+            escapeCarry = 0;
+            // 反斜杠很少，逐个处理：没有被转义的反斜杠转义下一个字符
+            long remaining = backslash & ~escaped;
+            while (remaining != 0) {
+                long bit = remaining & -remaining;
+                remaining ^= bit;
+                if ((escaped & bit) == 0) {
+                    if (bit == Long.MIN_VALUE) {
+                        escapeCarry = 1;
+                    } else {
+                        escaped |= bit << 1;
+                        remaining &= ~(bit << 1);
+                    }
+                }
+            }
+            quote &= ~escaped;
+            open &= ~escaped;
+            close &= ~escaped;
+            separator &= ~escaped;
+
+            // 前缀异或：起始引号和字符串内容为1，结束引号为0
+            long inString = quote;
+            inString ^= inString << 1;
+            inString ^= inString << 2;
+            inString ^= inString << 4;
+            inString ^= inString << 8;
+            inString ^= inString << 16;
+            inString ^= inString << 32;
+            inString ^= stringCarry;
+            stringCarry = inString >> 63;
+
+            long value = ~(quote | open | close | separator | inString) & valid;
+            long valueStarts = value & ~(value << 1 | valueCarry);
+            valueCarry = value >>> 63;
+            long brackets = (open | close) & ~inString;
+            long tokens = (brackets | (quote & inString) | valueStarts) & valid;
+            while (tokens != 0) {
+                int bit = Long.numberOfTrailingZeros(tokens);
+                tokens &= tokens - 1;
+                long mask = 1L << bit;
+                add(base + bit, (open & mask) != 0 ? KIND_OPEN : (close & mask) != 0 ? KIND_CLOSE : KIND_VALUE);
+            }
+        }
+
+        /**
+         * 不足一块的剩余部分逐个字节得到位掩码
+         */
+        void tail(byte[] buf, int base, int end) {
+            long quote = 0;
+            long backslash = 0;
+            long open = 0;
+            long close = 0;
+            long separator = 0;
+            for (int i = base; i < end; i++) {
+                int c = buf[i];
+                long bit = 1L << (i - base);
+                if (c == '"') {
+                    quote |= bit;
+                } else if (c == '\\') {
+                    backslash |= bit;
+                } else if ((c | CASE_BIT) == '{') {
+                    open |= bit;
+                } else if ((c | CASE_BIT) == '}') {
+                    close |= bit;
+                } else if (isSeparator(c)) {
+                    separator |= bit;
+                }
+            }
+            block(base, quote, backslash, open, close, separator, (1L << (end - base)) - 1);
+        }
+
+        /**
+         * @see #tail(byte[], int, int)
+         */
+        void tail(char[] buf, int base, int end) {
+            long quote = 0;
+            long backslash = 0;
+            long open = 0;
+            long close = 0;
+            long separator = 0;
+            for (int i = base; i < end; i++) {
+                char c = buf[i];
+                long bit = 1L << (i - base);
+                if (c == '"') {
+                    quote |= bit;
+                } else if (c == '\\') {
+                    backslash |= bit;
+                } else if ((c | CASE_BIT) == '{') {
+                    open |= bit;
+                } else if ((c | CASE_BIT) == '}') {
+                    close |= bit;
+                } else if (isSeparator(c)) {
+                    separator |= bit;
+                }
+            }
+            block(base, quote, backslash, open, close, separator, (1L << (end - base)) - 1);
+        }
+    }
+
+    /**
+     * 逐个字符扫描，规则与{@link Scanner}相同
+     */
+    private static final class ScalarScanner extends Collector {
+
+        private boolean inString;
+        private boolean escapeNext;
+        private boolean inValue;
+
+        ScalarScanner(int length) {
+            super(length);
+        }
+
+        void next(int position, int c) {
+            boolean escaped = escapeNext;
+            escapeNext = c == '\\' && !escaped;
+            if (inString) {
+                if (c == '"' && !escaped) {
+                    inString = false;
+                }
+                return;
+            }
+            if (!escaped) {
+                if (c == '"') {
+                    add(position, KIND_VALUE);
+                    inString = true;
+                    inValue = false;
+                    return;
+                } else if ((c | CASE_BIT) == '{') {
+                    add(position, KIND_OPEN);
+                    inValue = false;
+                    return;
+                } else if ((c | CASE_BIT) == '}') {
+                    add(position, KIND_CLOSE);
+                    inValue = false;
+                    return;
+                } else if (isSeparator(c)) {
+                    inValue = false;
+                    return;
+                }
+            }
+            if (!inValue) {
+                add(position, KIND_VALUE);
+                inValue = true;
+            }
+        }
+    }
+
+}
@@ -40,10 +40,31 @@ import java.lang.reflect.Type;
  * come from gson: https://github.com/google/gson/blob/master/gson/src/main/java/com/google/gson/reflect/TypeToken.java
  */
 public class TypeToken<T> {
+
+    /**
+     * Canonical tokens for classes. A ClassValue does not keep the class loader alive.
+     */
+    private static final ClassValue<TypeToken<?>> CLASS_TOKENS = new ClassValue<TypeToken<?>>() {
+        @Override
+        protected TypeToken<?> computeValue(Class<?> type) {
+            return new TypeToken<Object>(type);
+        }
+    };
+
     final Class<? super T> rawType;
     final Type type;
     final int hashCode;
 
+    /**
+     * Element type of an array or collection type, resolved on first use.
+     */
+    private volatile TypeToken<?> elementType;
+
+    /**
+     * Key and value types of a map type, resolved on first use.
+     */
+    private volatile TypeToken<?>[] mapTypes;
+
     /**
      * Constructs a new type literal. Derives represented class from type
      * parameter.
@@ -103,27 +124,80 @@ public class TypeToken<T> {
 
     @Override
     public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         return o instanceof TypeToken<?>
+                && hashCode == ((TypeToken<?>) o).hashCode
                 && ReflectUtils.equals(type, ((TypeToken<?>) o).type);
     }
 
+    /**
+     * Returns the element type of this array or collection type. The result is computed once
+     * per token, so generic resolution does not run again for every array or collection instance.
+     */
+    final TypeToken<?> elementType() {
+        TypeToken<?> element = elementType;
+        if (element == null) {
+            element = get(rawType.isArray()
+                    ? ReflectUtils.getArrayComponentType(type)
+                    : ReflectUtils.getCollectionElementType(type, rawType));
+            elementType = element;
+        }
+        return element;
+    }
+
+    /**
+     * Returns the key type of this map type.
+     */
+    final TypeToken<?> mapKeyType() {
+        return mapTypes()[0];
+    }
+
+    /**
+     * Returns the value type of this map type.
+     */
+    final TypeToken<?> mapValueType() {
+        return mapTypes()[1];
+    }
+
+    private TypeToken<?>[] mapTypes() {
+        TypeToken<?>[] types = mapTypes;
+        if (types == null) {
+            Type[] keyAndValueTypes = ReflectUtils.getMapKeyAndValueTypes(type, rawType);
+            types = new TypeToken<?>[]{get(keyAndValueTypes[0]), get(keyAndValueTypes[1])};
+            mapTypes = types;
+        }
+        return types;
+    }
+
     @Override
     public final String toString() {
         return ReflectUtils.typeToString(type);
     }
 
     /**
-     * Gets type literal for the given {@code Type} instance.
+     * Gets type literal for the given {@code Type} instance. Classes return the same canonical
+     * token; other types return a new token, which callers keep together with the derived
+     * element and map types it caches.
      */
     public static TypeToken<?> get(Type type) {
-        return new TypeToken<Object>(type);
+        if (type instanceof Class) {
+            return CLASS_TOKENS.get((Class<?>) type);
+        }
+        TypeToken<?> token = new TypeToken<Object>(type);
+        if (token.type instanceof Class) {
+            return CLASS_TOKENS.get((Class<?>) token.type);
+        }
+        return token;
     }
 
     /**
      * Gets type literal for the given {@code Class} instance.
      */
+    @SuppressWarnings("unchecked")
     public static <T> TypeToken<T> get(Class<T> type) {
-        return new TypeToken<T>(type);
+        return (TypeToken<T>) CLASS_TOKENS.get(type);
     }
 
     /**
@@ -131,13 +205,13 @@ public class TypeToken<T> {
      * {@code rawType}.
      */
     public static TypeToken<?> getParameterized(Type rawType, Type... typeArguments) {
-        return new TypeToken<Object>(ReflectUtils.newParameterizedTypeWithOwner(null, rawType, typeArguments));
+        return get(ReflectUtils.newParameterizedTypeWithOwner(null, rawType, typeArguments));
     }
 
     /**
      * Gets type literal for the array type whose elements are all instances of {@code componentType}.
      */
     public static TypeToken<?> getArray(Type componentType) {
-        return new TypeToken<Object>(ReflectUtils.arrayOf(componentType));
+        return get(ReflectUtils.arrayOf(componentType));
     }
 }
@@ -0,0 +1,236 @@
+package com.zpj.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 直接读取UTF-8字节的json读取器。字段名、数字和ASCII字符串不需要解码，
+ * 只有包含非ASCII字符或转义字符的字符串才会按UTF-8解码。
+ * 从{@link InputStream}或堆外{@link ByteBuffer}读取时只保留一个固定大小的窗口
+ */
+final class Utf8JsonReader extends JsonReader {
+
+    private byte[] buf;
+
+    /**
+     * 以下两个来源都为null时buf中已经是完整的json
+     */
+    private final InputStream in;
+    private final ByteBuffer source;
+
+    /**
+     * @param buf    UTF-8编码的json
+     * @param offset 起始位置
+     * @param length 长度
+     */
+    Utf8JsonReader(byte[] buf, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buf.length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + " length=" + length + " size=" + buf.length);
+        }
+        this.buf = buf;
+        this.pos = offset;
+        this.limit = offset + length;
+        this.in = null;
+        this.source = null;
+    }
+
+    /**
+     * @param in         json来源，不会被关闭
+     * @param bufferSize 窗口大小，超过窗口大小的单个token会使窗口扩大
+     */
+    Utf8JsonReader(InputStream in, int bufferSize) {
+        this.buf = new byte[Math.max(bufferSize, 16)];
+        this.in = in;
+        this.source = null;
+    }
+
+    /**
+     * @param source     json来源，读取source的一个副本，不会改变它的position
+     * @param bufferSize 窗口大小，超过窗口大小的单个token会使窗口扩大
+     */
+    Utf8JsonReader(ByteBuffer source, int bufferSize) {
+        this.buf = new byte[Math.max(Math.min(bufferSize, source.remaining()), 16)];
+        this.in = null;
+        this.source = source.duplicate();
+    }
+
+    @Override
+    protected boolean fill(int minimum) {
+        if (in == null && source == null) {
+            return false;
+        }
+        int keep = mark >= 0 ? mark : pos;
+        if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            shift(keep);
+        }
+        while (limit - pos < minimum) {
+            if (limit == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            int count = read(limit, buf.length - limit);
+            if (count == -1) {
+                return false;
+            }
+            limit += count;
+        }
+        return true;
+    }
+
+    private int read(int offset, int length) {
+        if (source != null) {
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+            length = Math.min(length, source.remaining());
+            source.get(buf, offset, length);
+            return length;
+        }
+        try {
+            return in.read(buf, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected int charAt(int index) {
+        return buf[index] & 0xFF;
+    }
+
+    /**
+     * 按UTF-8解码，只包含ASCII字符的内容可以使用{@link #latin1(int, int)}
+     */
+    @Override
+    protected String string(int start, int length) {
+        return new String(buf, start, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    int nextName(NameTable names) {
+        if (peek() != '"') {
+            return names.find(nextString());
+        }
+        mark = ++pos;
+        int hash = 0;
+        while (pos < limit || fill(1)) {
+            byte c = buf[pos];
+            if (c == '"') {
+                int start = mark;
+                mark = -1;
+                return names.find(buf, start, pos++ - start, hash);
+            } else if (c == '\\' || c < 0) {
+                // 包含转义或非ASCII字符，解码后再查找
+                pos = mark;
+                mark = -1;
+                return names.find(readQuoted());
+            }
+            hash = 31 * hash + c;
+            pos++;
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    @Override
+    int nextName(NameTable names, int expected) {
+        int length = names.quotedLength(expected);
+        if (length > 0 && peek() == '"' && (limit - pos >= length || fill(length))
+                && names.matchesQuoted(expected, buf, pos)) {
+            pos += length;
+            return expected;
+        }
+        return nextName(names);
+    }
+
+    /**
+     * 纯ASCII字符串直接按字节创建，不需要解码
+     */
+    @Override
+    protected String readQuoted() {
+        mark = pos;
+        while (pos < limit || fill(1)) {
+            byte c = buf[pos];
+            if (c == '"') {
+                String value = latin1(mark, pos++ - mark);
+                mark = -1;
+                return value;
+            } else if (c == '\\' || c < 0) {
+                break;
+            }
+            pos++;
+        }
+        StringBuilder builder = new StringBuilder(pos - mark + 16);
+        for (int i = mark; i < pos; i++) {
+            builder.append((char) buf[i]);
+        }
+        mark = -1;
+        while (pos < limit || fill(1)) {
+            byte c = buf[pos++];
+            if (c == '"') {
+                return builder.toString();
+            } else if (c == '\\') {
+                builder.append(readEscape());
+            } else if (c < 0) {
+                appendUtf8(builder, c & 0xFF);
+            } else {
+                builder.append((char) c);
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    /**
+     * 解码一个多字节UTF-8字符，lead为首字节，pos位于首字节之后。非法的字节序列解码为U+FFFD
+     */
+    private void appendUtf8(StringBuilder builder, int lead) {
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            if ((pos < limit || fill(1)) && isContinuation(buf[pos])) {
+                builder.append((char) (((lead & 0x1F) << 6) | (buf[pos++] & 0x3F)));
+                return;
+            }
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            if ((limit - pos >= 2 || fill(2)) && isContinuation(buf[pos]) && isContinuation(buf[pos + 1])) {
+                int c = ((lead & 0x0F) << 12) | ((buf[pos] & 0x3F) << 6) | (buf[pos + 1] & 0x3F);
+                if (c >= 0x800 && !Character.isSurrogate((char) c)) {
+                    pos += 2;
+                    builder.append((char) c);
+                    return;
+                }
+            }
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            if ((limit - pos >= 3 || fill(3)) && isContinuation(buf[pos]) && isContinuation(buf[pos + 1]) && isContinuation(buf[pos + 2])) {
+                int c = ((lead & 0x07) << 18) | ((buf[pos] & 0x3F) << 12)
+                        | ((buf[pos + 1] & 0x3F) << 6) | (buf[pos + 2] & 0x3F);
+                if (c >= 0x10000 && c <= Character.MAX_CODE_POINT) {
+                    pos += 3;
+                    builder.append(Character.highSurrogate(c)).append(Character.lowSurrogate(c));
+                    return;
+                }
+            }
+        }
+        builder.append('\uFFFD');
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    /**
+     * 将ASCII字节创建为字符串
+     */
+    private String latin1(int start, int length) {
+        return new String(buf, start, length, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    void buildIndex() {
+        if (in == null && source == null) {
+            index = StructuralIndex.of(buf, pos, limit);
+        }
+    }
+
+}
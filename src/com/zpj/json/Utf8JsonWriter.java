@@ -0,0 +1,173 @@
+package com.zpj.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 直接输出UTF-8字节的json写入器，缓冲区写满时写出到OutputStream或WritableByteChannel，
+ * 不需要先生成完整的字符串再编码
+ */
+final class Utf8JsonWriter extends JsonWriter {
+
+    private final byte[] buf;
+    private int count;
+
+    private final OutputStream out;
+    private final WritableByteChannel channel;
+
+    /**
+     * 包装buf，用于写入channel
+     */
+    private final ByteBuffer wrapper;
+
+    /**
+     * @param out        写入目标，不会被关闭
+     * @param bufferSize 缓冲区大小
+     */
+    Utf8JsonWriter(OutputStream out, int bufferSize) {
+        this(out, new byte[Math.max(bufferSize, MIN_BUFFER_SIZE)]);
+    }
+
+    /**
+     * @param out 写入目标，不会被关闭
+     * @param buf 缓冲区，长度不小于{@link #MIN_BUFFER_SIZE}
+     */
+    Utf8JsonWriter(OutputStream out, byte[] buf) {
+        this.buf = buf;
+        this.out = out;
+        this.channel = null;
+        this.wrapper = null;
+    }
+
+    /**
+     * @param channel    写入目标，不会被关闭
+     * @param bufferSize 缓冲区大小
+     */
+    Utf8JsonWriter(WritableByteChannel channel, int bufferSize) {
+        this(channel, new byte[Math.max(bufferSize, MIN_BUFFER_SIZE)]);
+    }
+
+    /**
+     * @param channel 写入目标，不会被关闭
+     * @param buf     缓冲区，长度不小于{@link #MIN_BUFFER_SIZE}
+     */
+    Utf8JsonWriter(WritableByteChannel channel, byte[] buf) {
+        this.buf = buf;
+        this.out = null;
+        this.channel = channel;
+        this.wrapper = ByteBuffer.wrap(buf);
+    }
+
+    /**
+     * 当前使用的缓冲区，写入结束后可以归还给{@link BufferRecycler}
+     */
+    byte[] buffer() {
+        return buf;
+    }
+
+    @Override
+    protected void write(char c) throws IOException {
+        if (c < 0x80) {
+            if (count == buf.length) {
+                flushBuffer();
+            }
+            buf[count++] = (byte) c;
+        } else {
+            write(String.valueOf(c), 0, 1);
+        }
+    }
+
+    @Override
+    protected void write(String s, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            // 一个字符最多编码为4个字节
+            if (count + 4 > buf.length) {
+                flushBuffer();
+            }
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[count++] = (byte) (0xC0 | (c >> 6));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                    buf[count++] = (byte) (0xF0 | (codePoint >> 18));
+                    buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buf[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    // 不成对的代理字符无法编码，与String.getBytes一样替换为'?'
+                    buf[count++] = '?';
+                }
+            } else {
+                buf[count++] = (byte) (0xE0 | (c >> 12));
+                buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    @Override
+    protected void write(char[] chars, int offset, int length) throws IOException {
+        if (count + length > buf.length) {
+            flushBuffer();
+        }
+        for (int i = 0; i < length; i++) {
+            buf[count++] = (byte) chars[offset + i];
+        }
+    }
+
+    @Override
+    protected void write(FieldName name) throws IOException {
+        byte[] bytes = name.utf8;
+        if (count + bytes.length > buf.length) {
+            flushBuffer();
+            if (bytes.length > buf.length) {
+                writeDirectly(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buf, count, bytes.length);
+        count += bytes.length;
+    }
+
+    /**
+     * 比缓冲区还长的内容不经过缓冲区直接写出
+     */
+    private void writeDirectly(byte[] bytes) throws IOException {
+        if (out != null) {
+            out.write(bytes);
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (out != null) {
+            out.write(buf, 0, count);
+        } else {
+            wrapper.clear();
+            wrapper.limit(count);
+            while (wrapper.hasRemaining()) {
+                channel.write(wrapper);
+            }
+        }
+        count = 0;
+    }
+
+    @Override
+    void flush() throws IOException {
+        flushBuffer();
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+}
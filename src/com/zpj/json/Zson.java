@@ -1,30 +1,111 @@
 package com.zpj.json;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * 一个在java对象和JSON之间实现序列化和反序列化的轻量级java库
+ * 一个在java对象和JSON之间实现序列化和反序列化的轻量级java库。
+ * <p>
+ * 按类型缓存的绑定信息、适配器、构造器和大小提示都保存在Zson实例中，与实例一起回收；
+ * 静态缓存只使用以类本身为key的ClassValue，不会让其他类和类加载器一直存活。
+ * 需要卸载的类应使用单独的Zson实例
  *
  * @author Z-P-J
  */
 public final class Zson {
 
+    /**
+     * 没有大小提示时序列化缓冲区的初始大小
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private static final BufferRecycler RECYCLER = new BufferRecycler();
+
     private final List<Adapter> adapters;
 
+    /**
+     * 编译期生成的适配器，通过ServiceLoader加载
+     */
+    private final Map<Class<?>, GeneratedAdapter<?>> generatedAdapters;
+
     private final int excludeModifiers = Modifier.TRANSIENT | Modifier.STATIC;
 
+    /**
+     * 类型到序列化元数据的缓存，每个类型只解析一次
+     */
+    private final Map<TypeToken<?>, ClassBinding> bindings = new ConcurrentHashMap<>();
+
+    /**
+     * 类型到适配器的缓存，每个类型只匹配一次适配器
+     */
+    private final Map<TypeToken<?>, Adapter> adapterCache = new ConcurrentHashMap<>();
+
+    private final LongAdder adapterCacheHits = new LongAdder();
+    private final LongAdder adapterCacheMisses = new LongAdder();
+
+    /**
+     * 根类型到序列化结果长度的估计，用于确定下次序列化时缓冲区的初始大小
+     */
+    private final Map<Class<?>, Integer> sizeHints = new ConcurrentHashMap<>();
+
+    /**
+     * 类型到构造器的缓存
+     */
+    private final Map<Class<?>, ObjectConstructor> constructors = new ConcurrentHashMap<>();
+
+    /**
+     * 没有无参构造方法的类型是否不调用构造方法直接分配对象
+     */
+    private volatile boolean unsafeAllocationEnabled = false;
+
+    /**
+     * 反序列化内存中的json时是否预先建立结构索引
+     */
+    private volatile boolean structuralIndexEnabled = false;
+
+    /**
+     * 是否使用运行时生成的代码读写对象的字段
+     */
+    private volatile boolean codegenEnabled = false;
+
+    /**
+     * 流式读写时的缓冲区大小
+     */
+    private volatile int streamBufferSize = 64 * 1024;
+
     public Zson() {
         List<Adapter> list = new ArrayList<>();
         list.add(new StringAdapter());
         list.add(new NumberAdapter());
         list.add(new BooleanAdapter());
+        list.add(new PrimitiveArrayAdapter());
         list.add(new ArrayAdapter());
         list.add(new ObjectAdapter());
         adapters = Collections.unmodifiableList(list);
+
+        Map<Class<?>, GeneratedAdapter<?>> generated = new HashMap<>();
+        for (GeneratedAdapter<?> adapter : ServiceLoader.load(GeneratedAdapter.class)) {
+            generated.put(adapter.getType(), adapter);
+        }
+        generatedAdapters = generated;
     }
 
     /**
@@ -35,368 +116,1217 @@ public final class Zson {
      * @throws Exception
      */
     public String serialize(Object obj) throws Exception {
+        Class<?> type = obj.getClass();
+        Integer hint = sizeHints.get(type);
+        CharJsonWriter writer = new CharJsonWriter(RECYCLER.allocChars(hint == null ? DEFAULT_BUFFER_SIZE : hint));
+        try {
+            serialize(obj, writer);
+            String json = writer.toString();
+            updateSizeHint(type, hint, json.length());
+            return json;
+        } finally {
+            RECYCLER.releaseChars(writer.buffer());
+        }
+    }
+
+    /**
+     * 长度明显变化时才更新，避免每次序列化都写入map
+     */
+    private void updateSizeHint(Class<?> type, Integer hint, int length) {
+        int newHint = Math.max(length + (length >> 3), DEFAULT_BUFFER_SIZE);
+        if (hint == null || length > hint || newHint < hint >> 2) {
+            sizeHints.put(type, newHint);
+        }
+    }
+
+    /**
+     * 根据之前的序列化结果估计的type的json长度，没有序列化过该类型时返回0
+     *
+     * @param type 序列化的根类型
+     * @return 以char计的长度
+     */
+    public int getSizeHint(Class<?> type) {
+        Integer hint = sizeHints.get(type);
+        return hint == null ? 0 : hint;
+    }
+
+    /**
+     * 序列化到字符流，缓冲区写满时写出，完成后flush，writer不会被关闭
+     *
+     * @param obj
+     * @param writer
+     * @throws Exception
+     * @see #setStreamBufferSize(int)
+     */
+    public void serialize(Object obj, Writer writer) throws Exception {
+        CharJsonWriter jsonWriter = new CharJsonWriter(writer, RECYCLER.allocChars(streamBufferSize()));
+        try {
+            serialize(obj, jsonWriter);
+        } finally {
+            RECYCLER.releaseChars(jsonWriter.buffer());
+        }
+    }
+
+    /**
+     * 以UTF-8编码序列化到字节流，缓冲区写满时写出，完成后flush，stream不会被关闭
+     *
+     * @param obj
+     * @param stream
+     * @throws Exception
+     * @see #setStreamBufferSize(int)
+     */
+    public void serialize(Object obj, OutputStream stream) throws Exception {
+        Utf8JsonWriter writer = new Utf8JsonWriter(stream, RECYCLER.allocBytes(streamBufferSize()));
+        try {
+            serialize(obj, writer);
+        } finally {
+            RECYCLER.releaseBytes(writer.buffer());
+        }
+    }
+
+    /**
+     * 以UTF-8编码序列化到channel，缓冲区写满时写出，channel不会被关闭
+     *
+     * @param obj
+     * @param channel
+     * @throws Exception
+     * @see #setStreamBufferSize(int)
+     */
+    public void serialize(Object obj, WritableByteChannel channel) throws Exception {
+        Utf8JsonWriter writer = new Utf8JsonWriter(channel, RECYCLER.allocBytes(streamBufferSize()));
+        try {
+            serialize(obj, writer);
+        } finally {
+            RECYCLER.releaseBytes(writer.buffer());
+        }
+    }
+
+    private int streamBufferSize() {
+        return Math.max(streamBufferSize, JsonWriter.MIN_BUFFER_SIZE);
+    }
+
+    private void serialize(Object obj, JsonWriter writer) throws Exception {
         TypeToken<?> typeToken = TypeToken.get(obj.getClass());
         Adapter adapter = getAdapter(typeToken);
-        StringBuilder builder = new StringBuilder();
-        adapter.write(builder, null, obj, typeToken);
-        if (builder.lastIndexOf(",") == builder.length() - 1) {
-            builder.deleteCharAt(builder.length() - 1);
+        adapter.write(writer, null, obj, typeToken);
+        writer.flush();
+    }
+
+    /**
+     * 反序列化
+     *
+     * @param json
+     * @param clazz
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> T deserialize(String json, Class<T> clazz) throws Exception {
+        return deserialize(new CharJsonReader(json), clazz);
+    }
+
+    /**
+     * 直接从UTF-8字节反序列化，不需要先解码成字符串
+     *
+     * @param utf8   UTF-8编码的json
+     * @param offset 起始位置
+     * @param length 长度
+     * @param clazz
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> T deserialize(byte[] utf8, int offset, int length, Class<T> clazz) throws Exception {
+        return deserialize(new Utf8JsonReader(utf8, offset, length), clazz);
+    }
+
+    /**
+     * 从ByteBuffer的position到limit之间的UTF-8字节反序列化，不会改变buffer的position
+     *
+     * @param buffer UTF-8编码的json
+     * @param clazz
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> T deserialize(ByteBuffer buffer, Class<T> clazz) throws Exception {
+        if (buffer.hasArray()) {
+            return deserialize(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), clazz);
+        }
+        // 堆外buffer没有可以直接访问的数组，按窗口分段读取
+        return deserialize(new Utf8JsonReader(buffer, streamBufferSize), clazz);
+    }
+
+    /**
+     * 从字符流反序列化。只保留一个固定大小的窗口，不需要先把整个json读入内存，reader不会被关闭
+     *
+     * @param reader json来源
+     * @param type   目标类型，可以是泛型类型
+     * @param <T>
+     * @return
+     * @throws Exception
+     * @see #setStreamBufferSize(int)
+     */
+    public <T> T deserialize(Reader reader, Type type) throws Exception {
+        return deserialize(new CharJsonReader(reader, streamBufferSize), type);
+    }
+
+    /**
+     * 从UTF-8字节流反序列化。只保留一个固定大小的窗口，不需要先把整个json读入内存，stream不会被关闭
+     *
+     * @param stream json来源
+     * @param type   目标类型，可以是泛型类型
+     * @param <T>
+     * @return
+     * @throws Exception
+     * @see #setStreamBufferSize(int)
+     */
+    public <T> T deserialize(InputStream stream, Type type) throws Exception {
+        return deserialize(new Utf8JsonReader(stream, streamBufferSize), type);
+    }
+
+    /**
+     * 只绑定projection中的字段路径，其余的值直接跳过，没有被选中的字段保持创建对象后的值
+     *
+     * @param json
+     * @param type       目标类型，可以是泛型类型
+     * @param projection 需要绑定的字段路径
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> T deserialize(String json, Type type, Projection projection) throws Exception {
+        return deserialize(new CharJsonReader(json), type, projection);
+    }
+
+    /**
+     * 直接从UTF-8字节反序列化，只绑定projection中的字段路径
+     *
+     * @param utf8       UTF-8编码的json
+     * @param offset     起始位置
+     * @param length     长度
+     * @param type       目标类型，可以是泛型类型
+     * @param projection 需要绑定的字段路径
+     * @param <T>
+     * @return
+     * @throws Exception
+     * @see #deserialize(String, Type, Projection)
+     */
+    public <T> T deserialize(byte[] utf8, int offset, int length, Type type, Projection projection) throws Exception {
+        return deserialize(new Utf8JsonReader(utf8, offset, length), type, projection);
+    }
+
+    /**
+     * 从UTF-8字节流反序列化，只绑定projection中的字段路径，stream不会被关闭
+     *
+     * @param stream     json来源
+     * @param type       目标类型，可以是泛型类型
+     * @param projection 需要绑定的字段路径
+     * @param <T>
+     * @return
+     * @throws Exception
+     * @see #deserialize(String, Type, Projection)
+     */
+    public <T> T deserialize(InputStream stream, Type type, Projection projection) throws Exception {
+        return deserialize(new Utf8JsonReader(stream, streamBufferSize), type, projection);
+    }
+
+    private <T> T deserialize(JsonReader reader, Type type, Projection projection) throws Exception {
+        reader.projection = projection.isLeaf() ? null : projection;
+        return deserialize(reader, type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T deserialize(JsonReader reader, Type type) throws Exception {
+        TypeToken<?> typeToken = TypeToken.get(type);
+        Adapter adapter = getAdapter(typeToken);
+        if (structuralIndexEnabled) {
+            reader.buildIndex();
+        }
+        try {
+            int c = reader.peek();
+            if (c != '{' && c != '[') {
+                throw new RuntimeException("The format of json is incorrect!");
+            }
+            return (T) adapter.read(reader, null, typeToken);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <T> T deserialize(JsonReader reader, Class<T> clazz) throws Exception {
+        return clazz.cast(deserialize(reader, (Type) clazz));
+    }
+
+    /**
+     * 取出json中pointer指向的值的原始文本，不绑定任何对象。只扫描到该值为止，其余的值直接跳过。
+     * pointer每次都会重新编译，反复使用时可以先通过{@link JsonPointer#compile(String...)}编译
+     *
+     * @param json
+     * @param pointer JSON Pointer，例如"/testBean2/a"、"/list/0"
+     * @return 值的原始json文本，例如字符串包含引号；值不存在时返回null
+     * @throws Exception
+     */
+    public String extract(String json, String pointer) throws Exception {
+        JsonReader reader = seek(new CharJsonReader(json), JsonPointer.compile(pointer));
+        return reader == null ? null : reader.nextRaw();
+    }
+
+    /**
+     * 取出json中pointer指向的整数
+     *
+     * @param json
+     * @param pointer JSON Pointer
+     * @return
+     * @throws Exception 值不存在或不是整数时
+     * @see #extract(String, String)
+     */
+    public long extractLong(String json, String pointer) throws Exception {
+        return extractLong(json, JsonPointer.compile(pointer));
+    }
+
+    /**
+     * @param pointer 编译后的单个pointer
+     * @see #extractLong(String, String)
+     */
+    public long extractLong(String json, JsonPointer pointer) throws Exception {
+        return seekExisting(new CharJsonReader(json), pointer).nextLong();
+    }
+
+    /**
+     * 取出json中pointer指向的数字
+     *
+     * @param json
+     * @param pointer JSON Pointer
+     * @return
+     * @throws Exception 值不存在或不是数字时
+     * @see #extract(String, String)
+     */
+    public double extractDouble(String json, String pointer) throws Exception {
+        return extractDouble(json, JsonPointer.compile(pointer));
+    }
+
+    /**
+     * @param pointer 编译后的单个pointer
+     * @see #extractDouble(String, String)
+     */
+    public double extractDouble(String json, JsonPointer pointer) throws Exception {
+        return seekExisting(new CharJsonReader(json), pointer).nextDouble();
+    }
+
+    /**
+     * 取出json中pointer指向的字符串，数字和布尔值按原样返回
+     *
+     * @param json
+     * @param pointer JSON Pointer
+     * @return 值不存在或为null时返回null
+     * @throws Exception 值是对象或数组时
+     * @see #extract(String, String)
+     */
+    public String extractString(String json, String pointer) throws Exception {
+        return extractString(json, JsonPointer.compile(pointer));
+    }
+
+    /**
+     * @param pointer 编译后的单个pointer
+     * @see #extractString(String, String)
+     */
+    public String extractString(String json, JsonPointer pointer) throws Exception {
+        JsonReader reader = seek(new CharJsonReader(json), pointer);
+        if (reader == null || reader.nextNull()) {
+            return null;
+        }
+        int c = reader.peek();
+        if (c == '{' || c == '[') {
+            throw reader.syntaxError("Expected a string");
+        }
+        return reader.nextString();
+    }
+
+    /**
+     * 一次扫描取出多个pointer指向的值的原始文本，全部找到后不再继续扫描
+     *
+     * @param json
+     * @param pointers 编译后的pointer
+     * @return 按pointers的顺序排列的原始json文本，不存在的值为null
+     * @throws Exception
+     * @see #extract(String, String)
+     */
+    public String[] extract(String json, JsonPointer pointers) throws Exception {
+        return extract(new CharJsonReader(json), pointers);
+    }
+
+    /**
+     * 直接从UTF-8字节中一次扫描取出多个pointer指向的值的原始文本
+     *
+     * @param utf8     UTF-8编码的json
+     * @param offset   起始位置
+     * @param length   长度
+     * @param pointers 编译后的pointer
+     * @return 按pointers的顺序排列的原始json文本，不存在的值为null
+     * @throws Exception
+     * @see #extract(String, JsonPointer)
+     */
+    public String[] extract(byte[] utf8, int offset, int length, JsonPointer pointers) throws Exception {
+        return extract(new Utf8JsonReader(utf8, offset, length), pointers);
+    }
+
+    private String[] extract(JsonReader reader, JsonPointer pointers) {
+        if (structuralIndexEnabled) {
+            reader.buildIndex();
+        }
+        return pointers.evaluate(reader);
+    }
+
+    /**
+     * @return 位于pointer指向的值之前的reader，值不存在时返回null
+     */
+    private JsonReader seek(JsonReader reader, JsonPointer pointer) {
+        if (structuralIndexEnabled) {
+            reader.buildIndex();
+        }
+        return pointer.seek(reader) ? reader : null;
+    }
+
+    private JsonReader seekExisting(JsonReader reader, JsonPointer pointer) {
+        if (seek(reader, pointer) == null) {
+            throw new RuntimeException("No value at json pointer " + pointer);
+        }
+        return reader;
+    }
+
+    /**
+     * 设置没有无参构造方法的类型是否通过sun.misc.Unsafe直接分配对象，默认关闭。
+     * 这样创建的对象不会执行任何构造方法和字段初始化，json中没有的字段保持默认值
+     *
+     * @param enabled 是否启用
+     */
+    public void setUnsafeAllocationEnabled(boolean enabled) {
+        this.unsafeAllocationEnabled = enabled;
+        constructors.clear();
+    }
+
+    public boolean isUnsafeAllocationEnabled() {
+        return unsafeAllocationEnabled;
+    }
+
+    /**
+     * 设置反序列化String、byte[]和堆内ByteBuffer时是否预先扫描一遍建立结构索引，默认关闭。
+     * 启用后跳过未知字段的对象或数组时直接跳到结束括号，适合未知字段多且嵌套深的输入。
+     * 从流中反序列化时不使用索引
+     *
+     * @param enabled 是否启用
+     */
+    public void setStructuralIndexEnabled(boolean enabled) {
+        this.structuralIndexEnabled = enabled;
+    }
+
+    public boolean isStructuralIndexEnabled() {
+        return structuralIndexEnabled;
+    }
+
+    /**
+     * 设置是否使用运行时生成的代码读写对象，默认关闭，可以随时切换以比较两种实现。
+     * 启用后每个类在第一次使用时生成一个专用的类，按字段逐个展开读写，基本类型和String字段不经过Adapter；
+     * 生成的代码不能直接访问的字段通过反射读写，无法生成的类、record、使用Projection的反序列化
+     * 以及编译期生成了适配器的类仍然使用反射的实现
+     *
+     * @param enabled 是否启用
+     */
+    public void setCodegenEnabled(boolean enabled) {
+        this.codegenEnabled = enabled;
+    }
+
+    public boolean isCodegenEnabled() {
+        return codegenEnabled;
+    }
+
+    /**
+     * 设置从Reader、InputStream或堆外ByteBuffer反序列化时的窗口大小，以及序列化到流时的缓冲区大小，默认64KB。
+     * 反序列化时超过窗口大小的单个字符串或数字会使窗口临时扩大；
+     * 序列化时可能复用回收池中更大的缓冲区，但不超过{@link BufferRecycler#MAX_RECYCLED_SIZE}
+     *
+     * @param size 窗口大小，以char或byte计
+     */
+    public void setStreamBufferSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        this.streamBufferSize = size;
+    }
+
+    public int getStreamBufferSize() {
+        return streamBufferSize;
+    }
+
+    /**
+     * 适配器缓存命中次数
+     */
+    public long getAdapterCacheHits() {
+        return adapterCacheHits.sum();
+    }
+
+    /**
+     * 适配器缓存未命中次数，即实际匹配适配器的次数
+     */
+    public long getAdapterCacheMisses() {
+        return adapterCacheMisses.sum();
+    }
+
+    /**
+     * 当前设置下读写该类型的对象时是否使用运行时生成的代码
+     */
+    boolean usesGeneratedCodec(Type type) {
+        return codegenEnabled && getBinding(TypeToken.get(type)).codec() != null;
+    }
+
+    private Adapter getAdapter(TypeToken<?> typeToken) {
+        Adapter adapter = adapterCache.get(typeToken);
+        if (adapter != null) {
+            adapterCacheHits.increment();
+            return adapter;
+        }
+        adapterCacheMisses.increment();
+        for (Adapter a : adapters) {
+            if (a.is(typeToken)) {
+                adapter = a;
+                break;
+            }
+        }
+        adapterCache.put(typeToken, adapter);
+        return adapter;
+    }
+
+    private Object newInstance(Class<?> raw) {
+        ObjectConstructor constructor = constructors.get(raw);
+        if (constructor == null) {
+            GeneratedAdapter<?> generated = generatedAdapters.get(raw);
+            constructor = generated != null
+                    ? ObjectConstructor.of(generated)
+                    : ObjectConstructor.of(raw, unsafeAllocationEnabled);
+            constructors.put(raw, constructor);
+        }
+        return constructor.newInstance();
+    }
+
+    private ClassBinding getBinding(TypeToken<?> typeToken) {
+        ClassBinding binding = bindings.get(typeToken);
+        if (binding == null) {
+            binding = new ClassBinding(typeToken);
+            ClassBinding old = bindings.putIfAbsent(typeToken, binding);
+            if (old != null) {
+                binding = old;
+            }
+        }
+        return binding;
+    }
+
+    private boolean excludeField(Field field) {
+        if ((excludeModifiers & field.getModifiers()) != 0) {
+            return true;
+        }
+        if (field.isSynthetic()) {
+            return true;
+        }
+        return isAnonymousOrLocal(field.getType());
+    }
+
+    private boolean isAnonymousOrLocal(Class<?> clazz) {
+        return !Enum.class.isAssignableFrom(clazz)
+                && (clazz.isAnonymousClass() || clazz.isLocalClass());
+    }
+
+    private interface Adapter {
+        /**
+         * 判断该适配器是否可以处理该类型
+         *
+         * @param token
+         * @return
+         */
+        boolean is(TypeToken<?> token);
+
+        /**
+         * 从json解析出相应的对象
+         *
+         * @param reader JsonReader
+         * @param obj    当前对象
+         * @param token  java对象的TypeToken类型
+         * @return
+         * @throws Exception
+         */
+        Object read(JsonReader reader, Object obj, TypeToken<?> token) throws Exception;
+
+        /**
+         * 将java对象写入json
+         *
+         * @param writer
+         * @param name
+         * @param obj
+         * @param token
+         * @throws Exception
+         */
+        void write(JsonWriter writer, FieldName name, Object obj, TypeToken<?> token) throws Exception;
+
+    }
+
+    private class ObjectAdapter implements Adapter {
+
+        @Override
+        public boolean is(TypeToken<?> token) {
+            return true;
+        }
+
+        @Override
+        public Object read(JsonReader reader, Object obj, TypeToken<?> token) throws Exception {
+            if (reader.nextNull()) {
+                return null;
+            }
+            Class<?> raw = token.getRawType();
+            boolean isMap = Map.class.isAssignableFrom(raw);
+            ClassBinding binding = isMap ? null : getBinding(token);
+            if (binding != null && binding.recordConstructor != null) {
+                // record不可变，总是创建新的对象
+                return binding.readRecord(reader);
+            }
+            if (obj == null) {
+                obj = newInstance(raw);
+            }
+            GeneratedCodec codec = binding != null && reader.projection == null && codegenEnabled ? binding.codec() : null;
+            reader.beginObject();
+            if (isMap) {
+                TypeToken<?> keyTypeToken = token.mapKeyType();
+                TypeToken<?> valueTypeToken = token.mapValueType();
+                Adapter keyAdapter = getAdapter(keyTypeToken);
+                Adapter valueAdapter = getAdapter(valueTypeToken);
+                Map<Object, Object> map = (Map<Object, Object>) obj;
+                Projection projection = reader.projection;
+                while (reader.hasNext()) {
+                    // key总是带引号的，数字和布尔值的读取也支持带引号的值
+                    Object key = keyAdapter.read(reader, null, keyTypeToken);
+                    if (projection == null) {
+                        map.put(key, valueAdapter.read(reader, null, valueTypeToken));
+                        continue;
+                    }
+                    Projection child = projection.child(keyName(key, keyTypeToken));
+                    if (child == null) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    reader.projection = child.isLeaf() ? null : child;
+                    map.put(key, valueAdapter.read(reader, null, valueTypeToken));
+                    reader.projection = projection;
+                }
+            } else if (codec != null) {
+                codec.read(reader, obj);
+            } else {
+                Projection projection = reader.projection;
+                Projection[] plan = projection == null ? null : binding.plan(projection);
+                // 字段通常按声明顺序出现，预测下一个字段是上一个字段的下一个
+                int expected = 0;
+                while (reader.hasNext()) {
+                    int index = reader.nextName(binding.names, expected);
+                    if (index < 0) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    expected = index + 1;
+                    if (plan == null) {
+                        binding.fields[index].read(reader, obj);
+                    } else if (plan[index] == null) {
+                        reader.skipValue();
+                    } else {
+                        reader.projection = plan[index].isLeaf() ? null : plan[index];
+                        binding.fields[index].read(reader, obj);
+                        reader.projection = projection;
+                    }
+                }
+            }
+            reader.endObject();
+            return obj;
+        }
+
+        @Override
+        public void write(JsonWriter writer, FieldName name, Object obj, TypeToken<?> token) throws Exception {
+            if (name != null) {
+                writer.name(name);
+            }
+            if (obj == null) {
+                writer.nullValue();
+                return;
+            }
+            writer.beginObject();
+
+            Class<?> raw = token.getRawType();
+            if (Map.class.isAssignableFrom(raw)) {
+                TypeToken<?> keyTypeToken = token.mapKeyType();
+                TypeToken<?> valueTypeToken = token.mapValueType();
+                Adapter valueAdapter = getAdapter(valueTypeToken);
+
+                Map<?, ?> map = ((Map<?, ?>) obj);
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writer.name(keyName(entry.getKey(), keyTypeToken));
+                    valueAdapter.write(writer, null, entry.getValue(), valueTypeToken);
+                }
+            } else {
+                ClassBinding binding = getBinding(token);
+                GeneratedCodec codec = codegenEnabled ? binding.codec() : null;
+                if (codec != null) {
+                    codec.write(writer, obj);
+                } else {
+                    for (FieldBinding field : binding.fields) {
+                        field.write(writer, obj);
+                    }
+                }
+            }
+
+            writer.endObject();
+        }
+
+        /**
+         * map的key总是写为字符串，数字和布尔值的读取也支持带引号的值
+         */
+        private String keyName(Object key, TypeToken<?> keyToken) throws Exception {
+            if (key instanceof String) {
+                return (String) key;
+            } else if (key instanceof Character) {
+                return Integer.toString((Character) key);
+            } else if (key != null && keyToken.getRawType().isEnum()) {
+                Enum<?> constant = (Enum<?>) key;
+                return EnumTable.of(constant).name(constant);
+            }
+            return String.valueOf(key);
         }
-        return builder.toString();
+
     }
 
     /**
-     * 反序列化
-     *
-     * @param json
-     * @param clazz
-     * @param <T>
-     * @return
-     * @throws Exception
+     * 一个类的序列化元数据，按声明顺序(子类到父类)保存所有需要序列化的字段。
+     * 每个类型只构建一次，构建后不可变，可被多个线程共享
      */
-    public <T> T deserialize(String json, Class<T> clazz) throws Exception {
-        TypeToken<?> typeToken = TypeToken.get(clazz);
-        Adapter adapter = getAdapter(typeToken);
-        JsonReader reader = new JsonReader(json);
-        if (reader.peek() != '{') {
-            throw new RuntimeException("The format of json is incorrect!");
-        }
-        return clazz.cast(adapter.read(reader, null, clazz.newInstance(), typeToken));
-    }
+    private final class ClassBinding {
 
-    private Adapter getAdapter(TypeToken<?> typeToken) {
-        Adapter adapter = null;
-        for (Adapter a : adapters) {
-            if (a.is(typeToken)) {
-                adapter = a;
-                break;
-            }
-        }
-        return adapter;
-    }
+        private final FieldBinding[] fields;
 
-    private interface Adapter {
         /**
-         * 判断该适配器是否可以处理该类型
-         *
-         * @param token
-         * @return
+         * fields中各字段序列化后的名字
          */
-        boolean is(TypeToken<?> token);
+        private final String[] fieldNames;
 
         /**
-         * 从json解析出相应的对象
-         *
-         * @param reader JsonReader
-         * @param value  解析的字符串
-         * @param obj    当前对象
-         * @param token  java对象的TypeToken类型
-         * @return
-         * @throws Exception
+         * 字段名到fields下标的查找表，重名时以父类的字段为准
          */
-        Object read(JsonReader reader, String value, Object obj, TypeToken<?> token) throws Exception;
+        private final NameTable names;
 
         /**
-         * 将java对象写入json
-         *
-         * @param builder
-         * @param name
-         * @param obj
-         * @param token
-         * @throws Exception
+         * record类的规范构造方法，类型为(Object[])Object，不是record时为null
          */
-        void write(StringBuilder builder, String name, Object obj, TypeToken<?> token) throws Exception;
+        private final MethodHandle recordConstructor;
 
-    }
+        /**
+         * record类中fields[i]对应的构造方法参数位置
+         */
+        private final int[] recordPositions;
 
-    private static class JsonReader {
+        /**
+         * record类构造方法参数的默认值，json中缺少的基本类型组件为0或false
+         */
+        private final Object[] recordDefaults;
 
-        private final String str;
-        private final int length;
-        private int index;
+        /**
+         * 最近一次使用的Projection对应的字段子路径
+         */
+        private volatile ProjectionPlan lastPlan;
 
-        public JsonReader(String str) {
-            this.str = str;
-            this.length = str.length();
-            this.index = 0;
-        }
+        private final Class<?> type;
 
-        public boolean hasNext() {
-            return index >= length;
-        }
+        /**
+         * fields对应的java字段，编译期生成了适配器时为null
+         */
+        private final Field[] javaFields;
+
+        /**
+         * 运行时生成的读写代码，第一次使用时生成，无法生成时为null
+         */
+        private volatile GeneratedCodec codec;
+        private volatile boolean codecGenerated;
 
-        public int peek() {
-            while (index < length) {
-                int c = str.charAt(index++);
-                switch (c) {
-                    case ':':
-                    case ',':
-                    case ' ':
-                    case '\n':
-                    case '\t':
-                    case '\r':
+        ClassBinding(TypeToken<?> token) {
+            List<FieldBinding> list = new ArrayList<>();
+            List<Field> javaFields = new ArrayList<>();
+            Class<?> raw = token.getRawType();
+            this.type = raw;
+            boolean record = ReflectUtils.isRecord(raw);
+            GeneratedAdapter<?> generated = token.getType() == raw ? generatedAdapters.get(raw) : null;
+            if (generated != null) {
+                String[] names = generated.getNames();
+                Type[] types = generated.getTypes();
+                FieldAccessor[] accessors = generated.getAccessors();
+                for (int i = 0; i < names.length; i++) {
+                    TypeToken<?> tt = TypeToken.get(types[i]);
+                    FieldBinding binding = new FieldBinding(accessors[i], names[i], tt, getAdapter(tt));
+                    list.add(binding);
+                }
+                raw = Object.class;
+            }
+            while (raw != Object.class) {
+                for (Field field : raw.getDeclaredFields()) {
+                    if (excludeField(field)) {
                         continue;
-                    default:
-                        index--;
-                        return c;
+                    }
+                    TypeToken<?> tt = TypeToken.get(ReflectUtils.resolve(token.getType(), raw, field.getGenericType()));
+                    FieldBinding binding = new FieldBinding(FieldAccessor.of(field), ReflectUtils.getSerializeName(field), tt, getAdapter(tt));
+                    list.add(binding);
+                    javaFields.add(field);
                 }
+                token = TypeToken.get(raw.getGenericSuperclass());
+                raw = token.getRawType();
             }
-            return -1;
-        }
-
-        public int next() {
-            return str.charAt(index + 1);
-        }
-
-        public String readNext() {
-            char c = (char) peek();
-            if (c == '{' || c == '[') {
-                return null;
+            this.fields = list.toArray(new FieldBinding[0]);
+            this.javaFields = generated == null ? javaFields.toArray(new Field[0]) : null;
+            this.fieldNames = new String[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                fieldNames[i] = fields[i].name.name;
             }
-
-            boolean isStr = (c == '"');
-            if (isStr) {
-                index++;
+            this.names = new NameTable(fieldNames);
+            if (record && generated == null) {
+                String[] components = ReflectUtils.getRecordComponentNames(type);
+                Class<?>[] componentTypes = ReflectUtils.getRecordComponentTypes(type);
+                this.recordConstructor = ObjectConstructor.canonicalConstructor(type);
+                this.recordPositions = new int[fields.length];
+                for (int i = 0; i < fields.length; i++) {
+                    recordPositions[i] = Arrays.asList(components).indexOf(javaFields.get(i).getName());
+                }
+                this.recordDefaults = new Object[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    if (componentTypes[i].isPrimitive()) {
+                        recordDefaults[i] = Array.get(Array.newInstance(componentTypes[i], 1), 0);
+                    }
+                }
+            } else {
+                this.recordConstructor = null;
+                this.recordPositions = null;
+                this.recordDefaults = null;
             }
+        }
 
-            int start = index;
-            int end = index;
-            while (index < length) {
-                c = str.charAt(index++);
-                if (isStr) {
-                    if (c == '"') {
-                        if (str.charAt(index - 2) == '\\') {
-                            continue;
+        /**
+         * 第一次调用时生成读写代码，record和编译期生成了适配器的类不生成
+         */
+        GeneratedCodec codec() {
+            if (!codecGenerated) {
+                synchronized (this) {
+                    if (!codecGenerated) {
+                        GeneratedCodec generated = javaFields == null || recordConstructor != null
+                                ? null : CodecGenerator.generate(type, javaFields);
+                        if (generated != null) {
+                            generated.init(names, fields);
                         }
-                        end = index - 1;
-                        break;
+                        codec = generated;
+                        codecGenerated = true;
                     }
-                } else if (c == ':' || c == ',') {
-                    end = index - 1;
-                    break;
-                } else if (c == '}' || c == ']') {
-                    end = --index;
-                    break;
                 }
             }
-            String s = str.substring(start, end);
-            return s;
+            return codec;
         }
 
-        public void skipBy(int step) {
-            index += step;
+        /**
+         * 返回projection中每个字段的子路径。同一个Projection通常被反复使用，只保留最近一次的结果，
+         * 不会因为使用过的Projection而增长
+         */
+        Projection[] plan(Projection projection) {
+            ProjectionPlan last = lastPlan;
+            if (last == null || last.projection != projection) {
+                last = new ProjectionPlan(projection, projection.plan(fieldNames));
+                lastPlan = last;
+            }
+            return last.plan;
         }
 
-        public void skipToNext() {
-            Stack<Character> stack = new Stack<>();
-            char c;
-            while (index < length) {
-                c = str.charAt(index++);
-                if (c == '{' || c == '[' || c == ':') {
-                    stack.push(c);
-                } else if (c == '"') {
-                    if (stack.peek() == '"') {
-                        stack.pop();
-                    } else {
-                        stack.push('"');
-                    }
-                } else if (c == '}' && stack.peek() == '{') {
-                    stack.pop();
-                } else if (c == ']' && stack.peek() == '[') {
-                    stack.pop();
-                } else if (c == ',' && stack.peek() == ':') {
-                    stack.pop();
-                }
-                if (stack.isEmpty()) {
-                    break;
+        /**
+         * 读取record对象：组件的值先保存在按构造方法参数排列的数组中，读完整个对象后调用一次规范构造方法
+         */
+        Object readRecord(JsonReader reader) throws Exception {
+            Object[] args = recordDefaults.clone();
+            Projection projection = reader.projection;
+            Projection[] plan = projection == null ? null : plan(projection);
+            reader.beginObject();
+            int expected = 0;
+            while (reader.hasNext()) {
+                int index = reader.nextName(names, expected);
+                if (index < 0 || recordPositions[index] < 0 || plan != null && plan[index] == null) {
+                    reader.skipValue();
+                    continue;
+                }
+                expected = index + 1;
+                if (plan == null) {
+                    args[recordPositions[index]] = fields[index].readValue(reader);
+                } else {
+                    reader.projection = plan[index].isLeaf() ? null : plan[index];
+                    args[recordPositions[index]] = fields[index].readValue(reader);
+                    reader.projection = projection;
                 }
             }
+            reader.endObject();
+            try {
+                return recordConstructor.invokeExact(args);
+            } catch (Throwable e) {
+                if (e instanceof Exception) {
+                    throw (Exception) e;
+                }
+                throw (Error) e;
+            }
         }
 
     }
 
-    private class ObjectAdapter implements Adapter {
+    private static final class ProjectionPlan {
+
+        private final Projection projection;
 
-        private class FieldWrapper {
+        /**
+         * 与ClassBinding.fields对应的子路径，没有被选中的字段为null
+         */
+        private final Projection[] plan;
+
+        ProjectionPlan(Projection projection, Projection[] plan) {
+            this.projection = projection;
+            this.plan = plan;
+        }
+    }
 
-            private final Field field;
-            private final TypeToken<?> token;
+    private static final class FieldBinding implements GeneratedCodec.Binding {
 
-            public FieldWrapper(Field field, TypeToken<?> token) {
-                this.field = field;
-                this.token = token;
-            }
+        private static final int KIND_OBJECT = 0;
+        private static final int KIND_INT = 1;
+        private static final int KIND_LONG = 2;
+        private static final int KIND_SHORT = 3;
+        private static final int KIND_CHAR = 4;
+        private static final int KIND_FLOAT = 5;
+        private static final int KIND_DOUBLE = 6;
+        private static final int KIND_BOOLEAN = 7;
+
+        private final FieldAccessor accessor;
+        private final FieldName name;
+        private final TypeToken<?> token;
+        private final Adapter adapter;
+
+        /**
+         * 基本类型字段直接通过FieldAccessor的基本类型方法读写，不经过Adapter，避免装箱
+         */
+        private final int kind;
+
+        FieldBinding(FieldAccessor accessor, String name, TypeToken<?> token, Adapter adapter) {
+            this.accessor = accessor;
+            this.name = new FieldName(name);
+            this.token = token;
+            this.adapter = adapter;
+            this.kind = kindOf(token.getRawType());
+        }
 
-            public void set(Object obj, Object value) throws IllegalAccessException {
-                field.set(obj, value);
+        private static int kindOf(Class<?> type) {
+            if (type == int.class) {
+                return KIND_INT;
+            } else if (type == long.class) {
+                return KIND_LONG;
+            } else if (type == short.class) {
+                return KIND_SHORT;
+            } else if (type == char.class) {
+                return KIND_CHAR;
+            } else if (type == float.class) {
+                return KIND_FLOAT;
+            } else if (type == double.class) {
+                return KIND_DOUBLE;
+            } else if (type == boolean.class) {
+                return KIND_BOOLEAN;
             }
+            return KIND_OBJECT;
+        }
 
-            public Object get(Object obj) throws IllegalAccessException {
-                return field.get(obj);
+        @Override
+        public FieldName name() {
+            return name;
+        }
+
+        @Override
+        public void read(JsonReader reader, Object obj) throws Exception {
+            switch (kind) {
+                case KIND_INT:
+                    accessor.setInt(obj, reader.nextInt());
+                    break;
+                case KIND_LONG:
+                    accessor.setLong(obj, reader.nextLong());
+                    break;
+                case KIND_SHORT:
+                    accessor.setShort(obj, NumberAdapter.toShort(reader, reader.nextInt()));
+                    break;
+                case KIND_CHAR:
+                    accessor.setChar(obj, (char) reader.nextInt());
+                    break;
+                case KIND_FLOAT:
+                    accessor.setFloat(obj, reader.nextFloat());
+                    break;
+                case KIND_DOUBLE:
+                    accessor.setDouble(obj, reader.nextDouble());
+                    break;
+                case KIND_BOOLEAN:
+                    accessor.setBoolean(obj, reader.nextBoolean());
+                    break;
+                default:
+                    accessor.set(obj, adapter.read(reader, accessor.get(obj), token));
+                    break;
             }
+        }
 
-            public TypeToken<?> getTypeToken() {
-                return TypeToken.get(ReflectUtils.resolve(token.getType(), token.getRawType(), field.getGenericType()));
+        /**
+         * 读取字段的值但不写入对象，用于record
+         */
+        Object readValue(JsonReader reader) throws Exception {
+            switch (kind) {
+                case KIND_INT:
+                    return reader.nextInt();
+                case KIND_LONG:
+                    return reader.nextLong();
+                case KIND_SHORT:
+                    return NumberAdapter.toShort(reader, reader.nextInt());
+                case KIND_CHAR:
+                    return (char) reader.nextInt();
+                case KIND_FLOAT:
+                    return reader.nextFloat();
+                case KIND_DOUBLE:
+                    return reader.nextDouble();
+                case KIND_BOOLEAN:
+                    return reader.nextBoolean();
+                default:
+                    return adapter.read(reader, null, token);
             }
+        }
+
+        @Override
+        public Object readValue(JsonReader reader, Object current) throws Exception {
+            return adapter.read(reader, current, token);
+        }
+
+        @Override
+        public void writeValue(JsonWriter writer, Object value) throws Exception {
+            adapter.write(writer, name, value, token);
+        }
 
+        @Override
+        public void write(JsonWriter writer, Object obj) throws Exception {
+            switch (kind) {
+                case KIND_INT:
+                    writer.name(name).value(accessor.getInt(obj));
+                    break;
+                case KIND_LONG:
+                    writer.name(name).value(accessor.getLong(obj));
+                    break;
+                case KIND_SHORT:
+                    writer.name(name).value(accessor.getShort(obj));
+                    break;
+                case KIND_CHAR:
+                    writer.name(name).value((int) accessor.getChar(obj));
+                    break;
+                case KIND_FLOAT:
+                    writer.name(name).value(accessor.getFloat(obj));
+                    break;
+                case KIND_DOUBLE:
+                    writer.name(name).value(accessor.getDouble(obj));
+                    break;
+                case KIND_BOOLEAN:
+                    writer.name(name).value(accessor.getBoolean(obj));
+                    break;
+                default:
+                    adapter.write(writer, name, accessor.get(obj), token);
+                    break;
+            }
         }
 
+    }
+
+    /**
+     * 基本类型数组的适配器，元素直接读写，不经过java.lang.reflect.Array，也不装箱。
+     * 读取时先写入按两倍扩容的缓冲区，最后截取一次
+     */
+    private static class PrimitiveArrayAdapter implements Adapter {
+
+        private static final int INITIAL_CAPACITY = 16;
+
         @Override
         public boolean is(TypeToken<?> token) {
-            return true;
+            Class<?> component = token.getRawType().getComponentType();
+            return component != null && component.isPrimitive();
         }
 
         @Override
-        public Object read(JsonReader reader, String value, Object obj, TypeToken<?> token) throws Exception {
-            Class<?> raw = token.getRawType();
+        public Object read(JsonReader reader, Object obj, TypeToken<?> token) throws Exception {
+            if (reader.nextNull()) {
+                return null;
+            }
+            reader.beginArray();
+            Class<?> component = token.getRawType().getComponentType();
+            Object result;
+            if (component == int.class) {
+                result = readInts(reader);
+            } else if (component == long.class) {
+                result = readLongs(reader);
+            } else if (component == short.class) {
+                result = readShorts(reader);
+            } else if (component == byte.class) {
+                result = readBytes(reader);
+            } else if (component == char.class) {
+                result = readChars(reader);
+            } else if (component == float.class) {
+                result = readFloats(reader);
+            } else if (component == double.class) {
+                result = readDoubles(reader);
+            } else {
+                result = readBooleans(reader);
+            }
+            reader.endArray();
+            return result;
+        }
+
+        @Override
+        public void write(JsonWriter writer, FieldName name, Object obj, TypeToken<?> token) throws Exception {
+            if (name != null) {
+                writer.name(name);
+            }
             if (obj == null) {
-                if (raw == Map.class) {
-                    obj = HashMap.class.newInstance();
-                } else {
-                    obj = raw.newInstance();
-                }
+                writer.nullValue();
+                return;
             }
-            if (value != null) {
-                if ("null".equals(value)) {
-                    return null;
-                } else {
-                    throw new RuntimeException("The format of json is incorrect! value=" + value + " index=" + reader.index);
+            writer.beginArray();
+            Class<?> component = token.getRawType().getComponentType();
+            if (component == int.class) {
+                for (int value : (int[]) obj) {
+                    writer.value(value);
                 }
-            } else if (reader.peek() == '{' && reader.next() == '}') {
-                reader.skipBy(2);
-                return obj;
-            } else if (reader.peek() == '{') {
-                reader.skipBy(1);
-            }
-            if (Map.class.isAssignableFrom(raw)) {
-                Type[] keyAndValueTypes = ReflectUtils.getMapKeyAndValueTypes(token.getType(), raw);
-                TypeToken<?> keyTypeToken = TypeToken.get(keyAndValueTypes[0]);
-                TypeToken<?> valueTypeToken = TypeToken.get(keyAndValueTypes[1]);
-                Adapter keyAdapter = getAdapter(keyTypeToken);
-                Adapter valueAdapter = getAdapter(valueTypeToken);
-                while (!reader.hasNext()) {
-                    if (reader.peek() == '}') {
-                        reader.skipBy(1);
-                        break;
-                    }
-                    String key = reader.readNext();
-                    if (key == null) {
-                        break;
-                    }
-                    String v = reader.readNext();
-                    Map<Object, Object> map = (Map<Object, Object>) obj;
-                    map.put(keyAdapter.read(reader, key, null, keyTypeToken), valueAdapter.read(reader, v, null, valueTypeToken));
+            } else if (component == long.class) {
+                for (long value : (long[]) obj) {
+                    writer.value(value);
                 }
-            } else {
-                Map<String, FieldWrapper> fieldMap = new HashMap<>();
-                while (raw != Object.class) {
-                    for (Field field : raw.getDeclaredFields()) {
-                        if (excludeField(field)) {
-                            continue;
-                        }
-                        if (!field.isAccessible()) {
-                            field.setAccessible(true);
-                        }
-                        fieldMap.put(ReflectUtils.getSerializeName(field), new FieldWrapper(field, token));
-                    }
-                    token = TypeToken.get(raw.getGenericSuperclass());
-                    raw = token.getRawType();
+            } else if (component == short.class) {
+                for (short value : (short[]) obj) {
+                    writer.value(value);
                 }
-                while (!reader.hasNext()) {
-                    if (reader.peek() == '}') {
-                        reader.skipBy(1);
-                        break;
-                    }
-                    String name = reader.readNext();
-                    if (name == null) {
-                        break;
-                    }
-                    FieldWrapper field = fieldMap.get(name);
-                    if (field == null) {
-                        reader.skipToNext();
-                        continue;
-                    }
-                    TypeToken<?> tt = field.getTypeToken();
-                    Adapter adapter = getAdapter(tt);
-                    field.set(obj, adapter.read(reader, reader.readNext(), field.get(obj), tt));
+            } else if (component == byte.class) {
+                for (byte value : (byte[]) obj) {
+                    writer.value(value);
+                }
+            } else if (component == char.class) {
+                for (char value : (char[]) obj) {
+                    writer.value((int) value);
+                }
+            } else if (component == float.class) {
+                for (float value : (float[]) obj) {
+                    writer.value(value);
+                }
+            } else if (component == double.class) {
+                for (double value : (double[]) obj) {
+                    writer.value(value);
+                }
+            } else {
+                for (boolean value : (boolean[]) obj) {
+                    writer.value(value);
                 }
             }
-            return obj;
+            writer.endArray();
         }
 
-        @Override
-        public void write(StringBuilder builder, String name, Object obj, TypeToken<?> token) throws Exception {
-            if (name != null) {
-                builder.append('"').append(name).append('"').append(":");
-                if (obj == null) {
-                    builder.append("null,");
-                    return;
+        private static int[] readInts(JsonReader reader) {
+            int[] values = new int[INITIAL_CAPACITY];
+            int size = 0;
+            while (reader.hasNext()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
                 }
+                values[size++] = reader.nextInt();
             }
-            builder.append("{");
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
 
-            Class<?> raw = token.getRawType();
-            if (Map.class.isAssignableFrom(raw)) {
-                Type[] keyAndValueTypes = ReflectUtils.getMapKeyAndValueTypes(token.getType(), raw);
-                TypeToken<?> keyTypeToken = TypeToken.get(keyAndValueTypes[0]);
-                TypeToken<?> valueTypeToken = TypeToken.get(keyAndValueTypes[1]);
-                Adapter keyAdapter = getAdapter(keyTypeToken);
-                Adapter valueAdapter = getAdapter(valueTypeToken);
-                boolean isStrKey = keyAdapter instanceof StringAdapter;
+        private static long[] readLongs(JsonReader reader) {
+            long[] values = new long[INITIAL_CAPACITY];
+            int size = 0;
+            while (reader.hasNext()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = reader.nextLong();
+            }
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
 
-                Map<?, ?> map = ((Map<?, ?>) obj);
-                for (Object key : map.keySet()) {
-                    if (!isStrKey) {
-                        builder.append('"');
-                    }
-                    keyAdapter.write(builder, null, key, keyTypeToken);
-                    if (builder.lastIndexOf(",") == builder.length() - 1) {
-                        builder.deleteCharAt(builder.length() - 1);
-                    }
-                    if (!isStrKey) {
-                        builder.append('"');
-                    }
-                    builder.append(':');
-                    valueAdapter.write(builder, null, map.get(key), valueTypeToken);
+        private static short[] readShorts(JsonReader reader) {
+            short[] values = new short[INITIAL_CAPACITY];
+            int size = 0;
+            while (reader.hasNext()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
                 }
-            } else {
-                while (raw != Object.class) {
-                    for (Field field : raw.getDeclaredFields()) {
-                        if (excludeField(field)) {
-                            continue;
-                        }
-                        if (!field.isAccessible()) {
-                            field.setAccessible(true);
-                        }
-                        TypeToken<?> tt = TypeToken.get(ReflectUtils.resolve(token.getType(), raw, field.getGenericType()));
-                        Adapter adapter = getAdapter(tt);
-                        adapter.write(builder, ReflectUtils.getSerializeName(field), field.get(obj), tt);
-                    }
+                values[size++] = NumberAdapter.toShort(reader, reader.nextInt());
+            }
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
 
-                    token = TypeToken.get(raw.getGenericSuperclass());
-                    raw = token.getRawType();
+        private static byte[] readBytes(JsonReader reader) {
+            byte[] values = new byte[INITIAL_CAPACITY];
+            int size = 0;
+            while (reader.hasNext()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
                 }
+                values[size++] = NumberAdapter.toByte(reader, reader.nextInt());
             }
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
 
-            if (builder.lastIndexOf(",") == builder.length() - 1) {
-                builder.deleteCharAt(builder.length() - 1);
+        private static char[] readChars(JsonReader reader) {
+            char[] values = new char[INITIAL_CAPACITY];
+            int size = 0;
+            while (reader.hasNext()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = (char) reader.nextInt();
             }
-            builder.append("},");
+            return size == values.length ? values : Arrays.copyOf(values, size);
         }
 
-        private boolean excludeField(Field field) {
-            if ((excludeModifiers & field.getModifiers()) != 0) {
-                return true;
+        private static float[] readFloats(JsonReader reader) {
+            float[] values = new float[INITIAL_CAPACITY];
+            int size = 0;
+            while (reader.hasNext()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = reader.nextFloat();
             }
-            if (field.isSynthetic()) {
-                return true;
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+
+        private static double[] readDoubles(JsonReader reader) {
+            double[] values = new double[INITIAL_CAPACITY];
+            int size = 0;
+            while (reader.hasNext()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = reader.nextDouble();
             }
-            return isAnonymousOrLocal(field.getType());
+            return size == values.length ? values : Arrays.copyOf(values, size);
         }
 
-        private boolean isAnonymousOrLocal(Class<?> clazz) {
-            return !Enum.class.isAssignableFrom(clazz)
-                    && (clazz.isAnonymousClass() || clazz.isLocalClass());
+        private static boolean[] readBooleans(JsonReader reader) {
+            boolean[] values = new boolean[INITIAL_CAPACITY];
+            int size = 0;
+            while (reader.hasNext()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = reader.nextBoolean();
+            }
+            return size == values.length ? values : Arrays.copyOf(values, size);
         }
 
     }
@@ -410,207 +1340,120 @@ public final class Zson {
         }
 
         @Override
-        public Object read(JsonReader reader, String value, Object obj, TypeToken<?> token) throws Exception {
-            if (reader.peek() != '[') {
+        public Object read(JsonReader reader, Object obj, TypeToken<?> token) throws Exception {
+            if (reader.nextNull()) {
                 return null;
             }
-            reader.skipBy(1);
+            reader.beginArray();
             Class<?> raw = token.getRawType();
             if (raw.isArray()) {
-                if (reader.peek() == '[' && reader.next() == ']') {
-                    return Array.newInstance(raw, 0);
-                }
-                Type componentType = ReflectUtils.getArrayComponentType(token.getType());
-                TypeToken<?> tt = TypeToken.get(componentType);
+                TypeToken<?> tt = token.elementType();
                 Adapter adapter = getAdapter(tt);
                 List<Object> items = new ArrayList<>();
-                while (!reader.hasNext()) {
-                    if (reader.peek() == ']') {
-                        reader.skipBy(1);
-                        break;
-                    }
-                    items.add(adapter.read(reader, reader.readNext(), null, tt));
+                while (reader.hasNext()) {
+                    items.add(adapter.read(reader, null, tt));
                 }
                 obj = Array.newInstance(tt.getRawType(), items.size());
                 for (int i = 0; i < items.size(); i++) {
                     Array.set(obj, i, items.get(i));
                 }
-                return obj;
             } else if (Collection.class.isAssignableFrom(raw)) {
                 if (obj == null) {
-                    if (raw == List.class) {
-                        obj = ArrayList.class.newInstance();
-                    } else {
-                        obj = raw.newInstance();
-                    }
-                }
-                if (reader.peek() == '[' && reader.next() == ']') {
-                    return obj;
+                    obj = newInstance(raw);
                 }
-                Type elementType = ReflectUtils.getCollectionElementType(token.getType(), raw);
-                TypeToken<?> tt = TypeToken.get(elementType);
+                TypeToken<?> tt = token.elementType();
                 Adapter adapter = getAdapter(tt);
                 Collection collection = (Collection) obj;
-                while (!reader.hasNext()) {
-                    if (reader.peek() == ']') {
-                        reader.skipBy(1);
-                        break;
-                    }
-                    collection.add(adapter.read(reader, reader.readNext(), null, tt));
+                while (reader.hasNext()) {
+                    collection.add(adapter.read(reader, null, tt));
                 }
             }
+            reader.endArray();
             return obj;
         }
 
         @Override
-        public void write(StringBuilder builder, String name, Object obj, TypeToken<?> token) throws Exception {
+        public void write(JsonWriter writer, FieldName name, Object obj, TypeToken<?> token) throws Exception {
             if (name != null) {
-                builder.append('"').append(name).append('"').append(":");
-                if (obj == null) {
-                    builder.append("null");
-                    return;
-                }
+                writer.name(name);
+            }
+            if (obj == null) {
+                writer.nullValue();
+                return;
             }
-            builder.append("[");
+            writer.beginArray();
 
             Class<?> raw = token.getRawType();
             if (raw.isArray()) {
-                Type componentType = ReflectUtils.getArrayComponentType(token.getType());
-                TypeToken<?> tt = TypeToken.get(componentType);
+                TypeToken<?> tt = token.elementType();
                 Adapter adapter = getAdapter(tt);
                 for (int i = 0; i < Array.getLength(obj); i++) {
-                    adapter.write(builder, null, Array.get(obj, i), tt);
+                    adapter.write(writer, null, Array.get(obj, i), tt);
                 }
-            } else if (List.class.isAssignableFrom(raw) || Set.class.isAssignableFrom(raw)) {
-                Type elementType = ReflectUtils.getCollectionElementType(token.getType(), raw);
-//                System.out.println("type=" + token.getType() + " raw=" + raw + " elementType=" + elementType);
-                TypeToken<?> tt = TypeToken.get(elementType);
+            } else if (Collection.class.isAssignableFrom(raw)) {
+                TypeToken<?> tt = token.elementType();
                 Adapter adapter = getAdapter(tt);
                 Collection<?> collection = (Collection<?>) obj;
                 for (Object item : collection) {
-                    adapter.write(builder, null, item, tt);
+                    adapter.write(writer, null, item, tt);
                 }
             }
 
-            if (builder.lastIndexOf(",") == builder.length() - 1) {
-                builder.deleteCharAt(builder.length() - 1);
-            }
-            builder.append("],");
+            writer.endArray();
         }
     }
 
     private static class StringAdapter implements Adapter {
 
-        private static final String[] HTML_SAFE_REPLACEMENT_CHARS;
-
-        static {
-            HTML_SAFE_REPLACEMENT_CHARS = new String[128];
-            for (int i = 0; i <= 0x1f; i++) {
-                HTML_SAFE_REPLACEMENT_CHARS[i] = String.format("\\u%04x", (int) i);
-            }
-            HTML_SAFE_REPLACEMENT_CHARS['"'] = "\\\"";
-            HTML_SAFE_REPLACEMENT_CHARS['\\'] = "\\\\";
-            HTML_SAFE_REPLACEMENT_CHARS['\t'] = "\\t";
-            HTML_SAFE_REPLACEMENT_CHARS['\b'] = "\\b";
-            HTML_SAFE_REPLACEMENT_CHARS['\n'] = "\\n";
-            HTML_SAFE_REPLACEMENT_CHARS['\r'] = "\\r";
-            HTML_SAFE_REPLACEMENT_CHARS['\f'] = "\\f";
-//            HTML_SAFE_REPLACEMENT_CHARS['<'] = "\\u003c";
-//            HTML_SAFE_REPLACEMENT_CHARS['>'] = "\\u003e";
-//            HTML_SAFE_REPLACEMENT_CHARS['&'] = "\\u0026";
-//            HTML_SAFE_REPLACEMENT_CHARS['='] = "\\u003d";
-//            HTML_SAFE_REPLACEMENT_CHARS['\''] = "\\u0027";
-        }
-
         @Override
         public boolean is(TypeToken<?> token) {
             return token.getRawType() == String.class || token.getRawType().isEnum();
         }
 
         @Override
-        public Object read(JsonReader reader, String value, Object obj, TypeToken<?> token) throws Exception {
-            if (token.getRawType().isEnum()) {
-                if (value != null) {
-                    for (Field field : token.getRawType().getDeclaredFields()) {
-                        if (field.isEnumConstant()) {
-                            if (!field.isAccessible()) {
-                                field.setAccessible(true);
-                            }
-                            if (value.equals(ReflectUtils.getSerializeName(field))) {
-                                return field.get(null);
-                            }
-                        }
-                    }
-                }
+        public Object read(JsonReader reader, Object obj, TypeToken<?> token) throws Exception {
+            if (reader.nextNull()) {
                 return null;
             }
-            return value;
+            if (token.getRawType().isEnum()) {
+                return EnumTable.of(token.getRawType()).read(reader);
+            }
+            return reader.nextString();
         }
 
         @Override
-        public void write(StringBuilder builder, String name, Object obj, TypeToken<?> token) throws Exception {
+        public void write(JsonWriter writer, FieldName name, Object obj, TypeToken<?> token) throws Exception {
             if (name != null) {
-                builder.append('"').append(name).append('"').append(":");
+                writer.name(name);
             }
             if (obj == null) {
-                builder.append("null");
+                writer.nullValue();
+            } else if (obj instanceof Enum) {
+                Enum<?> constant = (Enum<?>) obj;
+                writer.rawValue(EnumTable.of(constant).quotedName(constant));
             } else {
-                if (token.getRawType().isEnum()) {
-                    builder.append('"');
-                    for (Field field : token.getRawType().getDeclaredFields()) {
-                        if (field.isEnumConstant()) {
-                            if (!field.isAccessible()) {
-                                field.setAccessible(true);
-                            }
-                            if (field.get(null) == obj) {
-                                builder.append(ReflectUtils.getSerializeName(field));
-                                break;
-                            }
-                        }
-                    }
-                    builder.append('"');
-                } else {
-                    writeString(builder, obj.toString());
-                }
-            }
-            builder.append(",");
-        }
-
-        private void writeString(StringBuilder builder, String value) {
-            builder.append('"');
-            int last = 0;
-            int length = value.length();
-            for (int i = 0; i < length; i++) {
-                char c = value.charAt(i);
-                String replacement;
-                if (c < 128) {
-                    replacement = HTML_SAFE_REPLACEMENT_CHARS[c];
-                    if (replacement == null) {
-                        continue;
-                    }
-                } else if (c == '\u2028') {
-                    replacement = "\\u2028";
-                } else if (c == '\u2029') {
-                    replacement = "\\u2029";
-                } else {
-                    continue;
-                }
-                if (last < i) {
-                    builder.append(value, last, i);
-                }
-                builder.append(replacement);
-                last = i + 1;
+                writer.value(obj.toString());
             }
-            if (last < length) {
-                builder.append(value, last, length);
-            }
-            builder.append('"');
         }
 
     }
 
     private static class NumberAdapter implements Adapter {
 
+        static short toShort(JsonReader reader, int value) {
+            if ((short) value != value) {
+                throw reader.syntaxError("Expected a short but was " + value);
+            }
+            return (short) value;
+        }
+
+        static byte toByte(JsonReader reader, int value) {
+            if ((byte) value != value) {
+                throw reader.syntaxError("Expected a byte but was " + value);
+            }
+            return (byte) value;
+        }
+
         @Override
         public boolean is(TypeToken<?> token) {
             Class<?> raw = token.getRawType();
@@ -620,46 +1463,81 @@ public final class Zson {
                     || raw == long.class || raw == Long.class
                     || raw == double.class || raw == Double.class
                     || raw == short.class || raw == Short.class
+                    || raw == byte.class || raw == Byte.class
                     || Number.class.isAssignableFrom(raw);
         }
 
         @Override
-        public Object read(JsonReader reader, String value, Object obj, TypeToken<?> token) throws Exception {
+        public Object read(JsonReader reader, Object obj, TypeToken<?> token) throws Exception {
+            if (reader.nextNull()) {
+                return null;
+            }
             Class<?> raw = token.getRawType();
             if (raw == char.class || raw == Character.class) {
-                return (char) Integer.parseInt(value);
+                return (char) reader.nextInt();
             } else if (raw == int.class || raw == Integer.class) {
-                return Integer.valueOf(value);
+                return reader.nextInt();
             } else if (raw == float.class || raw == Float.class) {
-                return Float.valueOf(value);
+                return reader.nextFloat();
             } else if (raw == long.class || raw == Long.class) {
-                return Long.valueOf(value);
+                return reader.nextLong();
             } else if (raw == double.class || raw == Double.class) {
-                return Double.valueOf(value);
+                return reader.nextDouble();
             } else if (raw == short.class || raw == Short.class) {
-                return Short.valueOf(value);
+                return toShort(reader, reader.nextInt());
+            } else if (raw == byte.class || raw == Byte.class) {
+                return toByte(reader, reader.nextInt());
+            } else if (raw == BigDecimal.class || raw == Number.class) {
+                return toBigDecimal(reader, reader.nextString());
+            } else if (raw == BigInteger.class) {
+                String text = reader.nextString();
+                try {
+                    return toBigDecimal(reader, text).toBigIntegerExact();
+                } catch (ArithmeticException e) {
+                    throw reader.syntaxError("Expected an integer but was " + text);
+                }
+            } else if (raw == AtomicInteger.class) {
+                return new AtomicInteger(reader.nextInt());
+            } else if (raw == AtomicLong.class) {
+                return new AtomicLong(reader.nextLong());
             }
-            if (obj == null) {
-                obj = token.getRawType().newInstance();
+            // 无法从json中的数字构造其他Number子类，不能跳过该值
+            throw reader.syntaxError("Unsupported number type " + raw.getName());
+        }
+
+        /**
+         * 按原始文本解析，不经过double，不丢失精度
+         */
+        static BigDecimal toBigDecimal(JsonReader reader, String text) {
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException e) {
+                throw reader.syntaxError("Expected a number but was " + text);
             }
-            return obj;
         }
 
         @Override
-        public void write(StringBuilder builder, String name, Object obj, TypeToken<?> token) throws Exception {
+        public void write(JsonWriter writer, FieldName name, Object obj, TypeToken<?> token) throws Exception {
             if (name != null) {
-                builder.append('"').append(name).append('"').append(":");
+                writer.name(name);
             }
             if (obj == null) {
-                builder.append("null");
+                writer.nullValue();
             } else {
-                if (token.getRawType() == char.class || token.getRawType() == Character.class) {
-                    builder.append((int) ((char) obj));
+                if (obj instanceof Character) {
+                    writer.value((int) ((char) obj));
+                } else if (obj instanceof Double) {
+                    writer.value((double) obj);
+                } else if (obj instanceof Float) {
+                    writer.value((float) obj);
+                } else if (obj instanceof Integer || obj instanceof Short || obj instanceof Byte) {
+                    writer.value(((Number) obj).intValue());
+                } else if (obj instanceof Long) {
+                    writer.value((long) obj);
                 } else {
-                    builder.append(obj);
+                    writer.rawValue(obj.toString());
                 }
             }
-            builder.append(",");
         }
     }
 
@@ -671,26 +1549,19 @@ public final class Zson {
         }
 
         @Override
-        public Object read(JsonReader reader, String value, Object obj, TypeToken<?> token) throws Exception {
-            if ("null".equals(value)) {
+        public Object read(JsonReader reader, Object obj, TypeToken<?> token) throws Exception {
+            if (reader.nextNull()) {
                 return null;
-            } else {
-                return Boolean.parseBoolean(value);
             }
+            return reader.nextBoolean();
         }
 
         @Override
-        public void write(StringBuilder builder, String name, Object obj, TypeToken<?> token) throws Exception {
+        public void write(JsonWriter writer, FieldName name, Object obj, TypeToken<?> token) throws Exception {
             if (name != null) {
-                builder.append('"').append(name).append('"').append(":");
-            }
-            String value;
-            if (obj == null) {
-                value = "false";
-            } else {
-                value = Boolean.toString((boolean) obj);
+                writer.name(name);
             }
-            builder.append(value).append(",");
+            writer.value(obj != null && (boolean) obj);
         }
     }
 
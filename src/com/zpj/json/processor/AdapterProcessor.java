@@ -0,0 +1,504 @@
+package com.zpj.json.processor;
+
+import com.zpj.json.GenerateAdapter;
+import com.zpj.json.Serialize;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 为{@link GenerateAdapter}标注的类生成{@code com.zpj.json.GeneratedAdapter}，
+ * 并将生成的类写入META-INF/services以便Zson通过ServiceLoader加载
+ *
+ * @see GenerateAdapter
+ */
+@SupportedAnnotationTypes("com.zpj.json.GenerateAdapter")
+public class AdapterProcessor extends AbstractProcessor {
+
+    private static final String SERVICE_FILE = "META-INF/services/com.zpj.json.GeneratedAdapter";
+
+    private static final String SUFFIX = "_ZsonAdapter";
+
+    private final Set<String> generated = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateAdapter.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateAdapter can only be applied to classes");
+                continue;
+            }
+            try {
+                generate((TypeElement) element);
+            } catch (ProcessException e) {
+                error(e.element, e.getMessage());
+            } catch (IOException e) {
+                error(element, "Failed to generate adapter: " + e.getMessage());
+            }
+        }
+        if (roundEnv.processingOver() && !generated.isEmpty()) {
+            try {
+                writeServiceFile();
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Failed to write " + SERVICE_FILE + ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) throws IOException, ProcessException {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.ABSTRACT)) {
+            throw new ProcessException(type, "@GenerateAdapter class must not be private or abstract");
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+            throw new ProcessException(type, "@GenerateAdapter class must not be an inner class");
+        }
+        if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            throw new ProcessException(type, "@GenerateAdapter class must not be local or anonymous");
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            throw new ProcessException(type, "@GenerateAdapter class must not be generic");
+        }
+        if (!hasNoArgConstructor(type)) {
+            throw new ProcessException(type, "@GenerateAdapter class must have a non-private no-arg constructor");
+        }
+
+        Elements elements = processingEnv.getElementUtils();
+        Types types = processingEnv.getTypeUtils();
+        PackageElement pkg = elements.getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String typeName = types.erasure(type.asType()).toString();
+        String simpleName = adapterSimpleName(type);
+
+        List<FieldInfo> fields = collectFields(type, pkg);
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * Generated by ").append(AdapterProcessor.class.getName())
+                .append(" for {@link ").append(typeName).append("}. Do not edit.\n */\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public final class ").append(simpleName)
+                .append(" extends com.zpj.json.GeneratedAdapter<").append(typeName).append("> {\n\n");
+
+        source.append("    public ").append(simpleName).append("() {\n");
+        source.append("        super(").append(typeName).append(".class,\n");
+        source.append("                new String[]{");
+        for (int i = 0; i < fields.size(); i++) {
+            source.append(i == 0 ? "" : ", ").append(stringLiteral(fields.get(i).serializeName));
+        }
+        source.append("},\n");
+        source.append("                new java.lang.reflect.Type[]{");
+        for (int i = 0; i < fields.size(); i++) {
+            source.append(i == 0 ? "" : ", ").append(typeExpression(fields.get(i).element, fields.get(i).type));
+        }
+        source.append("},\n");
+        source.append("                accessors());\n");
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public ").append(typeName).append(" newInstance() {\n");
+        source.append("        return new ").append(typeName).append("();\n");
+        source.append("    }\n\n");
+
+        source.append("    private static com.zpj.json.FieldAccessor[] accessors() {\n");
+        source.append("        return new com.zpj.json.FieldAccessor[]{");
+        for (int i = 0; i < fields.size(); i++) {
+            source.append(i == 0 ? "\n" : ",\n");
+            appendAccessor(source, fields.get(i));
+        }
+        source.append("\n        };\n");
+        source.append("    }\n\n");
+        source.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        }
+        generated.add(qualifiedName);
+    }
+
+    private boolean hasNoArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                return !constructor.getModifiers().contains(Modifier.PRIVATE);
+            }
+        }
+        return false;
+    }
+
+    private static String adapterSimpleName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name.insert(0, '_').insert(0, enclosing.getSimpleName());
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    /**
+     * 按照Zson反射时的顺序(子类到父类)收集需要序列化的字段
+     */
+    private List<FieldInfo> collectFields(TypeElement type, PackageElement pkg) throws ProcessException {
+        Types types = processingEnv.getTypeUtils();
+        DeclaredType declaredType = (DeclaredType) type.asType();
+        List<FieldInfo> fields = new ArrayList<>();
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            String owner = types.erasure(current.asType()).toString();
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (excludeField(field)) {
+                    continue;
+                }
+                Set<Modifier> modifiers = field.getModifiers();
+                FieldInfo info = new FieldInfo();
+                info.element = field;
+                info.owner = owner;
+                info.name = field.getSimpleName().toString();
+                info.serializeName = serializeName(field);
+                info.type = types.asMemberOf(declaredType, field);
+                info.isFinal = modifiers.contains(Modifier.FINAL);
+                if (!info.isFinal && !isAccessible(field, pkg)) {
+                    info.getter = findAccessor(current, getterNames(info), 0, pkg);
+                    info.setter = findAccessor(current, new String[]{"set" + capitalize(info.name)}, 1, pkg);
+                    if (info.getter == null || info.setter == null) {
+                        throw new ProcessException(field, "Field " + info.name
+                                + " is not accessible from the generated adapter, make it non-private or add a getter and setter");
+                    }
+                }
+                fields.add(info);
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return fields;
+    }
+
+    /**
+     * 与Zson反射时的excludeField规则相同：排除static和transient字段，以及类型为匿名类或局部类(枚举除外)的字段。
+     * javac不会把编译器生成的合成字段(例如this$0)作为Element暴露，不需要额外排除
+     */
+    private static boolean excludeField(VariableElement field) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+            return true;
+        }
+        TypeMirror type = field.asType();
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        Element element = ((DeclaredType) type).asElement();
+        if (element.getKind() == ElementKind.ENUM) {
+            return false;
+        }
+        NestingKind nesting = ((TypeElement) element).getNestingKind();
+        return nesting == NestingKind.ANONYMOUS || nesting == NestingKind.LOCAL;
+    }
+
+    private String serializeName(VariableElement field) {
+        Serialize serialize = field.getAnnotation(Serialize.class);
+        if (serialize != null && !serialize.name().isEmpty()) {
+            return serialize.name();
+        }
+        return field.getSimpleName().toString();
+    }
+
+    private boolean isAccessible(Element element, PackageElement pkg) {
+        Set<Modifier> modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        Element owner = element.getEnclosingElement();
+        if (owner instanceof TypeElement && !isAccessible(owner, pkg)) {
+            return false;
+        }
+        return modifiers.contains(Modifier.PUBLIC)
+                || processingEnv.getElementUtils().getPackageOf(element).equals(pkg);
+    }
+
+    private String[] getterNames(FieldInfo info) {
+        if (info.type.getKind() == TypeKind.BOOLEAN) {
+            return new String[]{"is" + capitalize(info.name), "get" + capitalize(info.name)};
+        }
+        return new String[]{"get" + capitalize(info.name)};
+    }
+
+    private ExecutableElement findAccessor(TypeElement type, String[] names, int parameterCount, PackageElement pkg) {
+        Elements elements = processingEnv.getElementUtils();
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (method.getModifiers().contains(Modifier.STATIC)
+                    || method.getParameters().size() != parameterCount
+                    || !isAccessible(method, pkg)) {
+                continue;
+            }
+            for (String name : names) {
+                if (method.getSimpleName().contentEquals(name)) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 通过声明该字段的类访问字段，子类中的同名字段不会遮蔽父类的字段。
+     * 生成的代码无法写入final字段，这类字段使用反射访问器，反序列化时与反射得到的结果相同
+     */
+    private void appendAccessor(StringBuilder source, FieldInfo field) {
+        if (field.isFinal) {
+            source.append("                reflectiveAccessor(").append(field.owner).append(".class, ")
+                    .append(stringLiteral(field.name)).append(')');
+            return;
+        }
+        String target = "((" + field.owner + ") obj)";
+        String read = field.getter == null ? target + "." + field.name : target + "." + field.getter.getSimpleName() + "()";
+        String indent = "                ";
+        source.append("                new com.zpj.json.FieldAccessor() {\n");
+
+        source.append(indent).append("    @Override\n");
+        source.append(indent).append("    public Object get(Object obj) {\n");
+        source.append(indent).append("        return ").append(read).append(";\n");
+        source.append(indent).append("    }\n\n");
+
+        String erasure = boxedErasure(field.type);
+        source.append(indent).append("    @Override\n");
+        source.append(indent).append("    public void set(Object obj, Object value) {\n");
+        appendWrite(source, indent, target, field, "(" + erasure + ") value");
+        source.append(indent).append("    }\n");
+
+        String primitive = primitiveName(field.type);
+        if (primitive != null) {
+            String suffix = capitalize(primitive);
+            source.append('\n');
+            source.append(indent).append("    @Override\n");
+            source.append(indent).append("    public ").append(primitive).append(" get").append(suffix).append("(Object obj) {\n");
+            source.append(indent).append("        return ").append(read).append(";\n");
+            source.append(indent).append("    }\n\n");
+            source.append(indent).append("    @Override\n");
+            source.append(indent).append("    public void set").append(suffix).append("(Object obj, ")
+                    .append(primitive).append(" value) {\n");
+            appendWrite(source, indent, target, field, "value");
+            source.append(indent).append("    }\n");
+        }
+        source.append(indent).append("}");
+    }
+
+    private void appendWrite(StringBuilder source, String indent, String target, FieldInfo field, String value) {
+        if (field.setter != null) {
+            source.append(indent).append("        ").append(target).append('.')
+                    .append(field.setter.getSimpleName()).append('(').append(value).append(");\n");
+        } else {
+            source.append(indent).append("        ").append(target).append('.')
+                    .append(field.name).append(" = ").append(value).append(";\n");
+        }
+    }
+
+    private String boxedErasure(TypeMirror type) {
+        Types types = processingEnv.getTypeUtils();
+        if (type.getKind().isPrimitive()) {
+            return types.boxedClass(types.getPrimitiveType(type.getKind())).getQualifiedName().toString();
+        }
+        return types.erasure(type).toString();
+    }
+
+    private static String primitiveName(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return "int";
+            case LONG:
+                return "long";
+            case SHORT:
+                return "short";
+            case CHAR:
+                return "char";
+            case FLOAT:
+                return "float";
+            case DOUBLE:
+                return "double";
+            case BOOLEAN:
+                return "boolean";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 生成在运行时构造该类型的java.lang.reflect.Type的表达式，不依赖反射
+     */
+    private String typeExpression(Element element, TypeMirror type) throws ProcessException {
+        Types types = processingEnv.getTypeUtils();
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case CHAR:
+            case FLOAT:
+            case DOUBLE:
+                return type.getKind().name().toLowerCase() + ".class";
+            case ARRAY:
+                TypeMirror component = ((ArrayType) type).getComponentType();
+                if (isRaw(component)) {
+                    return types.erasure(type) + ".class";
+                }
+                return "com.zpj.json.ReflectUtils.arrayOf(" + typeExpression(element, component) + ")";
+            case DECLARED:
+                DeclaredType declared = (DeclaredType) type;
+                String raw = types.erasure(type) + ".class";
+                if (declared.getTypeArguments().isEmpty()) {
+                    return raw;
+                }
+                TypeMirror enclosing = declared.getEnclosingType();
+                String owner = enclosing.getKind() == TypeKind.DECLARED
+                        ? typeExpression(element, enclosing) : "null";
+                StringBuilder builder = new StringBuilder("com.zpj.json.ReflectUtils.newParameterizedTypeWithOwner(")
+                        .append(owner).append(", ").append(raw);
+                for (TypeMirror argument : declared.getTypeArguments()) {
+                    builder.append(", ").append(typeExpression(element, argument));
+                }
+                return builder.append(')').toString();
+            case WILDCARD:
+                WildcardType wildcard = (WildcardType) type;
+                if (wildcard.getSuperBound() != null) {
+                    return "com.zpj.json.ReflectUtils.supertypeOf(" + typeExpression(element, wildcard.getSuperBound()) + ")";
+                } else if (wildcard.getExtendsBound() != null) {
+                    return "com.zpj.json.ReflectUtils.subtypeOf(" + typeExpression(element, wildcard.getExtendsBound()) + ")";
+                }
+                return "com.zpj.json.ReflectUtils.subtypeOf(java.lang.Object.class)";
+            default:
+                throw new ProcessException(element, "Unsupported field type " + type);
+        }
+    }
+
+    private static boolean isRaw(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            return ((DeclaredType) type).getTypeArguments().isEmpty();
+        }
+        return type.getKind() == TypeKind.ARRAY && isRaw(((ArrayType) type).getComponentType());
+    }
+
+    private void writeServiceFile() throws IOException {
+        Filer filer = processingEnv.getFiler();
+        Set<String> services = new TreeSet<>(generated);
+        try {
+            // 增量编译时保留之前生成的适配器
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        services.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException ignore) {
+            // 文件不存在
+        }
+        FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+        try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+            for (String service : services) {
+                writer.write(service);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static String stringLiteral(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class FieldInfo {
+        VariableElement element;
+
+        /**
+         * 声明该字段的类的擦除类型名
+         */
+        String owner;
+        String name;
+        String serializeName;
+        TypeMirror type;
+        boolean isFinal;
+        ExecutableElement getter;
+        ExecutableElement setter;
+    }
+
+    private static final class ProcessException extends Exception {
+
+        private static final long serialVersionUID = 0;
+
+        final Element element;
+
+        ProcessException(Element element, String message) {
+            super(message);
+            this.element = element;
+        }
+
+    }
+
+}
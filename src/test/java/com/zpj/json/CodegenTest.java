@@ -0,0 +1,230 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 运行时生成的代码与反射的实现结果必须完全相同
+ */
+class CodegenTest {
+
+    public static class Base<T> {
+        private int baseSecret = 1;
+        protected String label = "base";
+        public T value;
+        public int shadowed = 2;
+    }
+
+    public enum Color {
+        RED, GREEN
+    }
+
+    static class Inner {
+        public int x;
+        public List<String> tags;
+    }
+
+    public static class Bean extends Base<Integer> {
+        public int i;
+        private long l;
+        short s;
+        char c;
+        float f;
+        public double d;
+        boolean z;
+        byte b;
+        public String str;
+        @Serialize(name = "re\"named")
+        String name;
+        Integer boxed;
+        int[] ints;
+        List<Inner> inners = new ArrayList<>();
+        Map<String, Color> colors;
+        Color color;
+        Inner inner;
+        private final String fixed = new String("f");
+        public int shadowed = 3;
+        Object any;
+    }
+
+    private static final String JSON = "{\"i\":-7,\"l\":9223372036854775807,\"s\":-300,\"c\":66,\"f\":1.5,\"d\":-2.25E-8,"
+            + "\"z\":true,\"b\":-5,\"str\":\"a\\\"\\u4e2d\",\"re\\\"named\":\"n\",\"unknown\":{\"i\":[1,{}]},\"boxed\":null,"
+            + "\"ints\":[1,2,3],\"inners\":[{\"x\":1,\"tags\":[\"t\"]},null],\"colors\":{\"k\":\"GREEN\"},\"color\":\"RED\","
+            + "\"inner\":{\"x\":4},\"fixed\":\"g\",\"shadowed\":30,\"any\":{},"
+            + "\"baseSecret\":11,\"label\":null,\"value\":12,\"shadowed\":20}";
+
+    /**
+     * 与JSON相同的字段但顺序打乱，预测的下一个字段总是失败
+     */
+    private static final String SHUFFLED = "{\"shadowed\":20,\"value\":12,\"label\":null,\"baseSecret\":11,\"any\":{},"
+            + "\"shadowed\":30,\"fixed\":\"g\",\"inner\":{\"x\":4},\"color\":\"RED\",\"colors\":{\"k\":\"GREEN\"},"
+            + "\"inners\":[{\"x\":1,\"tags\":[\"t\"]},null],\"ints\":[1,2,3],\"boxed\":null,\"re\\\"named\":\"n\","
+            + "\"str\":\"a\\\"\\u4e2d\",\"b\":-5,\"z\":true,\"d\":-2.25E-8,\"f\":1.5,\"c\":66,\"s\":-300,"
+            + "\"l\":9223372036854775807,\"i\":-7}";
+
+    @TempDir
+    static Path dir;
+
+    private static URLClassLoader isolated;
+
+    /**
+     * 编译只依赖java.*的类，由看不到Zson的类加载器加载，此时无法定义hidden class
+     */
+    @BeforeAll
+    static void compileIsolated() throws Exception {
+        Path src = dir.resolve("src/iso");
+        Path out = dir.resolve("out");
+        Files.createDirectories(src);
+        Files.createDirectories(out);
+        String open = "package iso;\n"
+                + "public class Open {\n"
+                + "    public int a = 1;\n"
+                + "    private String b = \"b\";\n"
+                + "    public java.util.List<String> c;\n"
+                + "    long d;\n"
+                + "}\n";
+        String closed = "package iso;\n"
+                + "class Closed {\n"
+                + "    public int a = 1;\n"
+                + "    String b;\n"
+                + "}\n";
+        Files.write(src.resolve("Open.java"), open.getBytes(StandardCharsets.UTF_8));
+        Files.write(src.resolve("Closed.java"), closed.getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, errors, "-proc:none", "-d", out.toString(),
+                src.resolve("Open.java").toString(), src.resolve("Closed.java").toString());
+        assertEquals(0, result, new String(errors.toByteArray(), StandardCharsets.UTF_8));
+        isolated = new URLClassLoader(new URL[]{out.toUri().toURL()}, null);
+    }
+
+    private static Zson zson(boolean codegen) {
+        Zson zson = new Zson();
+        zson.setCodegenEnabled(codegen);
+        return zson;
+    }
+
+    @Test
+    void sameAsReflection() throws Exception {
+        Zson reflective = zson(false);
+        Zson generated = zson(true);
+        assertTrue(generated.usesGeneratedCodec(Bean.class));
+        assertTrue(generated.usesGeneratedCodec(Inner.class));
+        assertFalse(reflective.usesGeneratedCodec(Bean.class));
+
+        Bean bean = new Bean();
+        assertEquals(reflective.serialize(bean), generated.serialize(bean));
+
+        String expected = reflective.serialize(reflective.deserialize(JSON, Bean.class));
+        assertEquals("{\"i\":-7,\"l\":9223372036854775807,\"s\":-300,\"c\":66,\"f\":1.5,\"d\":-2.25E-8,\"z\":true,\"b\":-5,"
+                + "\"str\":\"a\\\"中\",\"re\\\"named\":\"n\",\"boxed\":null,\"ints\":[1,2,3],"
+                + "\"inners\":[{\"x\":1,\"tags\":[\"t\"]},null],\"colors\":{\"k\":\"GREEN\"},\"color\":\"RED\","
+                + "\"inner\":{\"x\":4,\"tags\":null},\"fixed\":\"g\",\"shadowed\":3,\"any\":{},"
+                + "\"baseSecret\":11,\"label\":null,\"value\":12,\"shadowed\":20}", expected);
+        for (String json : new String[]{JSON, SHUFFLED}) {
+            // 重名的字段都写入父类的字段，以最后出现的值为准
+            expected = reflective.serialize(reflective.deserialize(json, Bean.class));
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected, generated.serialize(generated.deserialize(json, Bean.class)));
+            assertEquals(expected, generated.serialize(generated.deserialize(utf8, 0, utf8.length, Bean.class)));
+            assertEquals(expected, generated.serialize(generated.deserialize(new ByteArrayInputStream(utf8), Bean.class)));
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            generated.serialize(reflective.deserialize(json, Bean.class), stream);
+            assertEquals(expected, new String(stream.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void errorsMatchReflection() {
+        for (String json : new String[]{"{\"s\":40000}", "{\"i\":\"x\"}", "{\"inner\":[1]}", "{\"z\":1}"}) {
+            Exception expected = null;
+            Exception actual = null;
+            try {
+                zson(false).deserialize(json, Bean.class);
+            } catch (Exception e) {
+                expected = e;
+            }
+            try {
+                zson(true).deserialize(json, Bean.class);
+            } catch (Exception e) {
+                actual = e;
+            }
+            assertTrue(expected != null && actual != null, json);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.getMessage(), actual.getMessage());
+        }
+    }
+
+    /**
+     * 同一个Zson可以随时切换，使用Projection时总是使用反射的实现
+     */
+    @Test
+    void toggleAndProjection() throws Exception {
+        Zson zson = new Zson();
+        String expected = zson.serialize(zson.deserialize(JSON, Bean.class));
+        zson.setCodegenEnabled(true);
+        assertTrue(zson.usesGeneratedCodec(Bean.class));
+        assertEquals(expected, zson.serialize(zson.deserialize(JSON, Bean.class)));
+        zson.setCodegenEnabled(false);
+        assertFalse(zson.usesGeneratedCodec(Bean.class));
+        assertEquals(expected, zson.serialize(zson.deserialize(JSON, Bean.class)));
+
+        Projection projection = Projection.of("i", "inners.x", "baseSecret");
+        String projected = zson.serialize(zson.deserialize(JSON, Bean.class, projection));
+        zson.setCodegenEnabled(true);
+        assertEquals(projected, zson.serialize(zson.deserialize(JSON, Bean.class, projection)));
+    }
+
+    /**
+     * 类加载器看不到Zson时public类定义在单独的类加载器中，只直接访问public字段；
+     * 非public的类无法生成，回到反射的实现
+     */
+    @Test
+    void fallback() throws Exception {
+        Class<?> open = isolated.loadClass("iso.Open");
+        Class<?> closed = isolated.loadClass("iso.Closed");
+        Zson generated = zson(true);
+        assertTrue(generated.usesGeneratedCodec(open));
+        assertFalse(generated.usesGeneratedCodec(closed));
+
+        Zson reflective = zson(false);
+        String json = "{\"d\":5,\"c\":[\"x\"],\"b\":\"y\",\"a\":2}";
+        String expected = "{\"a\":2,\"b\":\"y\",\"c\":[\"x\"],\"d\":5}";
+        assertEquals(expected, reflective.serialize(reflective.deserialize(json, open)));
+        assertEquals(expected, generated.serialize(generated.deserialize(json, open)));
+        assertEquals("{\"a\":2,\"b\":\"y\"}", generated.serialize(generated.deserialize(json, closed)));
+    }
+
+    /**
+     * 不使用hidden class时生成的类定义在单独的类加载器中，不能引用包级别的类
+     */
+    @Test
+    void withoutHiddenClasses() {
+        assertNull(CodecGenerator.generate(Inner.class, Inner.class.getDeclaredFields(), false));
+        GeneratedCodec codec = CodecGenerator.generate(Bean.class, Bean.class.getDeclaredFields(), false);
+        assertNotNull(codec);
+        assertNotSame(Bean.class.getClassLoader(), codec.getClass().getClassLoader());
+    }
+
+}
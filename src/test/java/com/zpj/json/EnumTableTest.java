@@ -0,0 +1,102 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EnumTableTest {
+
+    public enum Status {
+        ACTIVE,
+        @Serialize(name = "on_hold")
+        ON_HOLD,
+        @Serialize(name = "名字")
+        NAMED,
+        @Serialize(name = "a\"b")
+        QUOTED,
+        WITH_BODY {
+            @Override
+            public String toString() {
+                return "body";
+            }
+        },
+        // "Aa"和"BB"的hashCode相同
+        Aa,
+        BB,
+        // 与先声明的常量重名，读取时以ACTIVE为准
+        @Serialize(name = "ACTIVE")
+        DUPLICATE
+    }
+
+    public static class Holder {
+        public Status status;
+        public List<Status> list;
+        public Map<Status, Integer> counts;
+        public int after;
+    }
+
+    @Test
+    void serializeNames() throws Exception {
+        Zson zson = new Zson();
+        Holder holder = new Holder();
+        holder.list = Arrays.asList(Status.values());
+        holder.counts = new LinkedHashMap<>();
+        holder.counts.put(Status.ON_HOLD, 1);
+        holder.counts.put(Status.QUOTED, 2);
+        holder.status = Status.WITH_BODY;
+        assertEquals("{\"status\":\"WITH_BODY\",\"list\":[\"ACTIVE\",\"on_hold\",\"名字\",\"a\\\"b\",\"WITH_BODY\",\"Aa\",\"BB\",\"ACTIVE\"],"
+                + "\"counts\":{\"on_hold\":1,\"a\\\"b\":2},\"after\":0}", zson.serialize(holder));
+        assertEquals("\"on_hold\"", zson.serialize(Status.ON_HOLD));
+    }
+
+    @Test
+    void readNames() throws Exception {
+        String json = "{\"status\":\"WITH_BODY\",\"list\":[\"on_hold\",\"名字\",\"a\\\"b\",\"Aa\",\"BB\",\"ACTIVE\",\"\\u0041a\",null],"
+                + "\"counts\":{\"on_hold\":1,\"Aa\":2},\"after\":5}";
+        for (Holder holder : readAll(json)) {
+            assertEquals(Status.WITH_BODY, holder.status);
+            assertEquals(Arrays.asList(Status.ON_HOLD, Status.NAMED, Status.QUOTED, Status.Aa, Status.BB,
+                    Status.ACTIVE, Status.Aa, null), holder.list);
+            Map<Status, Integer> counts = new LinkedHashMap<>();
+            counts.put(Status.ON_HOLD, 1);
+            counts.put(Status.Aa, 2);
+            assertEquals(counts, holder.counts);
+            assertEquals(5, holder.after);
+        }
+    }
+
+    /**
+     * 未知的名字、@Serialize改名后的java名字和大小写不同的名字都读为null，后面的内容照常读取
+     */
+    @Test
+    void unknownConstants() throws Exception {
+        String json = "{\"status\":\"ON_HOLD\",\"list\":[\"missing\",\"active\",\"\",\"Ab\",\"on_hold\"],\"after\":7}";
+        for (Holder holder : readAll(json)) {
+            assertNull(holder.status);
+            assertEquals(Arrays.asList(null, null, null, null, Status.ON_HOLD), holder.list);
+            assertEquals(7, holder.after);
+        }
+        assertEquals(Collections.singletonList(null), new Zson().deserialize("{\"list\":[\"DUPLICATE\"]}", Holder.class).list);
+    }
+
+    private static Holder[] readAll(String json) throws Exception {
+        Zson zson = new Zson();
+        zson.setStreamBufferSize(16);
+        byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+        return new Holder[]{
+                zson.deserialize(json, Holder.class),
+                zson.deserialize(utf8, 0, utf8.length, Holder.class),
+                zson.deserialize(new ByteArrayInputStream(utf8), Holder.class)
+        };
+    }
+
+}
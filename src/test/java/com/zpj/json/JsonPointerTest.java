@@ -0,0 +1,101 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonPointerTest {
+
+    private static final String JSON = "{\"a\":{\"b\":[10,{\"c\":\"x\\\"y\"},[true,null]],\"n\":-2.5e3},"
+            + "\"m~n\":1,\"a/b\":2,\"~1\":3,\"\":4,\"s\":\"text\",\"big\":123456789012,"
+            + "\"list\":[{\"id\":1},{\"id\":2},{\"id\":3}],\"a\":\"duplicate\"}";
+
+    private final Zson zson = new Zson();
+
+    @Test
+    void escapedNames() throws Exception {
+        assertEquals("1", zson.extract(JSON, "/m~0n"));
+        assertEquals("2", zson.extract(JSON, "/a~1b"));
+        assertEquals("3", zson.extract(JSON, "/~01"));
+        assertEquals("4", zson.extract(JSON, "/"));
+        assertEquals(JSON, zson.extract(JSON, ""));
+    }
+
+    @Test
+    void arrayIndexes() throws Exception {
+        assertEquals("10", zson.extract(JSON, "/a/b/0"));
+        assertEquals("{\"c\":\"x\\\"y\"}", zson.extract(JSON, "/a/b/1"));
+        assertEquals("null", zson.extract(JSON, "/a/b/2/1"));
+        assertEquals("3", zson.extract(JSON, "/list/2/id"));
+        // 超出范围、前导0、负数和"-"(最后一个元素之后)都不指向任何值
+        assertNull(zson.extract(JSON, "/list/3"));
+        assertNull(zson.extract(JSON, "/list/01"));
+        assertNull(zson.extract(JSON, "/list/-1"));
+        assertNull(zson.extract(JSON, "/list/-"));
+    }
+
+    @Test
+    void missingPaths() throws Exception {
+        assertNull(zson.extract(JSON, "/missing"));
+        assertNull(zson.extract(JSON, "/a/b/0/c"));
+        assertNull(zson.extract(JSON, "/s/0"));
+        assertNull(zson.extractString(JSON, "/missing"));
+        assertThrows(RuntimeException.class, () -> zson.extractLong(JSON, "/missing"));
+        assertThrows(RuntimeException.class, () -> zson.extractDouble(JSON, "/a/x"));
+        assertThrows(IllegalArgumentException.class, () -> JsonPointer.compile("a"));
+        assertThrows(IllegalArgumentException.class, () -> JsonPointer.compile("/a~2"));
+        assertThrows(IllegalArgumentException.class, () -> JsonPointer.compile("/a~"));
+    }
+
+    @Test
+    void typedValues() throws Exception {
+        assertEquals(123456789012L, zson.extractLong(JSON, "/big"));
+        assertEquals(3, zson.extractLong(JSON, JsonPointer.compile("/list/2/id")));
+        assertEquals(-2500.0, zson.extractDouble(JSON, "/a/n"));
+        assertEquals(10.0, zson.extractDouble(JSON, JsonPointer.compile("/a/b/0")));
+        assertEquals("x\"y", zson.extractString(JSON, "/a/b/1/c"));
+        assertEquals("text", zson.extractString(JSON, JsonPointer.compile("/s")));
+        assertEquals("10", zson.extractString(JSON, "/a/b/0"));
+        assertEquals("true", zson.extractString(JSON, "/a/b/2/0"));
+        assertNull(zson.extractString(JSON, "/a/b/2/1"));
+        assertThrows(RuntimeException.class, () -> zson.extractString(JSON, "/a/b"));
+        assertThrows(RuntimeException.class, () -> zson.extractLong(JSON, "/s"));
+        assertThrows(RuntimeException.class, () -> zson.extractLong(JSON, "/a/n"));
+        assertThrows(IllegalArgumentException.class, () -> zson.extractLong(JSON, JsonPointer.compile("/big", "/s")));
+    }
+
+    @Test
+    void multiplePointersInOnePass() throws Exception {
+        JsonPointer pointers = JsonPointer.compile("/a/b/1/c", "/a", "/a/b", "/list/1/id", "/missing", "/a/n", "/s");
+        String[] expected = {
+                "\"x\\\"y\"",
+                "{\"b\":[10,{\"c\":\"x\\\"y\"},[true,null]],\"n\":-2.5e3}",
+                "[10,{\"c\":\"x\\\"y\"},[true,null]]",
+                "2",
+                null,
+                "-2.5e3",
+                "\"text\""
+        };
+        for (boolean indexed : new boolean[]{false, true}) {
+            Zson zson = new Zson();
+            zson.setStructuralIndexEnabled(indexed);
+            assertArrayEquals(expected, zson.extract(JSON, pointers));
+            byte[] utf8 = ("  " + JSON + "  ").getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(expected, zson.extract(utf8, 2, utf8.length - 4, pointers));
+        }
+        assertEquals(7, pointers.size());
+        assertEquals("/a", pointers.get(1));
+    }
+
+    @Test
+    void duplicateKeysKeepTheFirstValue() throws Exception {
+        assertArrayEquals(new String[]{"{\"b\":[10,{\"c\":\"x\\\"y\"},[true,null]],\"n\":-2.5e3}", "10"},
+                zson.extract(JSON, JsonPointer.compile("/a", "/a/b/0")));
+    }
+
+}
@@ -0,0 +1,179 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 写入Writer、OutputStream和WritableByteChannel的结果必须与serialize(Object)相同
+ */
+class JsonWriterTest {
+
+    public static class Row {
+        public int id;
+        public String text;
+        public double value;
+        public long[] samples;
+        public Map<String, String> attributes;
+    }
+
+    /**
+     * 根对象的元素类型来自字段声明，直接序列化List时元素按Object处理
+     */
+    public static class Page {
+        public List<Row> rows;
+    }
+
+    private static Page page(int count) {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Row row = new Row();
+            row.id = i;
+            // 转义字符、控制字符和1到4字节的UTF-8字符
+            row.text = i % 3 == 0 ? null : "行" + i + "\"\\\n\t\u0001é😀/ ";
+            row.value = i * 0.1 - 7.5e-5;
+            row.samples = new long[i % 5];
+            for (int j = 0; j < row.samples.length; j++) {
+                row.samples[j] = Long.MIN_VALUE + i * j;
+            }
+            row.attributes = new LinkedHashMap<>();
+            row.attributes.put("ключ" + i, i % 2 == 0 ? "v" : null);
+            rows.add(row);
+        }
+        Page page = new Page();
+        page.rows = rows;
+        return page;
+    }
+
+    @Test
+    void sinksMatchSerialize() throws Exception {
+        for (int count : new int[]{0, 1, 7, 2000}) {
+            Page rows = page(count);
+            for (int size : new int[]{1, 64, 1000, 64 * 1024}) {
+                Zson zson = new Zson();
+                zson.setStreamBufferSize(size);
+                String expected = zson.serialize(rows);
+
+                StringWriter writer = new StringWriter();
+                zson.serialize(rows, writer);
+                assertEquals(expected, writer.toString());
+
+                ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                zson.serialize(rows, stream);
+                assertEquals(expected, new String(stream.toByteArray(), StandardCharsets.UTF_8));
+
+                ByteArrayOutputStream channel = new ByteArrayOutputStream();
+                zson.serialize(rows, Channels.newChannel(channel));
+                assertEquals(expected, new String(channel.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void scalars() throws Exception {
+        Zson zson = new Zson();
+        Object[] values = {"é😀\u0000", 1.5, Long.MAX_VALUE, true, new int[0], new LinkedHashMap<>()};
+        for (Object value : values) {
+            String expected = zson.serialize(value);
+            StringWriter writer = new StringWriter();
+            zson.serialize(value, writer);
+            assertEquals(expected, writer.toString());
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            zson.serialize(value, stream);
+            assertEquals(expected, new String(stream.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 输出大于缓冲区时分多次写出，且不会关闭流。缓冲区来自回收池，可能比设置的大，但不会超过可回收的大小
+     */
+    @Test
+    void flushesIncrementallyWithoutClosing() throws Exception {
+        Zson zson = new Zson();
+        zson.setStreamBufferSize(1024);
+        Page rows = page(20000);
+        int length = zson.serialize(rows).length();
+        assertTrue(length > 2 * BufferRecycler.MAX_RECYCLED_SIZE, () -> "length " + length);
+
+        CountingOutputStream stream = new CountingOutputStream();
+        zson.serialize(rows, stream);
+        assertTrue(stream.writes > 1);
+        assertTrue(stream.largestWrite <= BufferRecycler.MAX_RECYCLED_SIZE, () -> "largest write " + stream.largestWrite);
+        assertTrue(stream.flushed);
+        assertFalse(stream.closed);
+
+        CountingWriter writer = new CountingWriter();
+        zson.serialize(rows, writer);
+        assertEquals(length, writer.length);
+        assertTrue(writer.writes > 1);
+        assertTrue(writer.largestWrite <= BufferRecycler.MAX_RECYCLED_SIZE, () -> "largest write " + writer.largestWrite);
+        assertFalse(writer.closed);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        int writes;
+        int largestWrite;
+        boolean flushed;
+        boolean closed;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            writes++;
+            largestWrite = Math.max(largestWrite, len);
+        }
+
+        @Override
+        public void flush() {
+            flushed = true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static final class CountingWriter extends Writer {
+
+        int writes;
+        int largestWrite;
+        int length;
+        boolean closed;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            writes++;
+            length += len;
+            largestWrite = Math.max(largestWrite, len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NameTableTest {
+
+    /**
+     * 由"Aa"和"BB"拼接的名字hashCode都相同，扩大表也无法消除冲突
+     */
+    private static String[] collidingNames(int parts) {
+        String[] names = new String[1 << parts];
+        for (int i = 0; i < names.length; i++) {
+            StringBuilder builder = new StringBuilder();
+            for (int bit = 0; bit < parts; bit++) {
+                builder.append((i >> bit & 1) == 0 ? "Aa" : "BB");
+            }
+            names[i] = builder.toString();
+        }
+        return names;
+    }
+
+    @Test
+    void identicalHashes() {
+        String[] names = collidingNames(5);
+        assertEquals(names[0].hashCode(), names[names.length - 1].hashCode());
+        NameTable table = new NameTable(names);
+        assertFindsAll(table, names);
+        assertEquals(-1, table.find("AaAaAaAaBC"));
+        assertEquals(-1, table.find("AaAa"));
+    }
+
+    /**
+     * 名字较多时表会扩大，所有名字都能找到，不存在的名字返回-1
+     */
+    @Test
+    void growth() {
+        for (int count : new int[]{0, 1, 2, 3, 17, 100, 1000}) {
+            String[] names = new String[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = "field" + i;
+            }
+            NameTable table = new NameTable(names);
+            assertEquals(count, table.size());
+            assertFindsAll(table, names);
+            assertEquals(-1, table.find("field" + count));
+            assertEquals(-1, table.find(""));
+        }
+    }
+
+    @Test
+    void quotedLengthAndPrediction() {
+        NameTable table = new NameTable(new String[]{"id", "名字", "a\"b", "x\\y", "tab\t", "Aa", "BB"});
+        assertEquals(4, table.quotedLength(0));
+        // 需要转义或非ASCII的名字不能直接与缓冲区比较
+        assertEquals(-1, table.quotedLength(1));
+        assertEquals(-1, table.quotedLength(2));
+        assertEquals(-1, table.quotedLength(3));
+        assertEquals(-1, table.quotedLength(4));
+        assertEquals(4, table.quotedLength(5));
+        assertEquals(4, table.quotedLength(6));
+        assertEquals(-1, table.quotedLength(7));
+
+        char[] chars = "\"BB\",\"id\"".toCharArray();
+        byte[] bytes = "\"BB\",\"id\"".getBytes(StandardCharsets.UTF_8);
+        assertTrue(table.matchesQuoted(6, chars, 0));
+        assertTrue(table.matchesQuoted(6, bytes, 0));
+        assertFalse(table.matchesQuoted(5, chars, 0));
+        assertFalse(table.matchesQuoted(5, bytes, 0));
+        assertTrue(table.matchesQuoted(0, chars, 5));
+        assertTrue(table.matchesQuoted(0, bytes, 5));
+        // 前缀相同但更长的名字
+        assertFalse(new NameTable(new String[]{"i"}).matchesQuoted(0, chars, 5));
+    }
+
+    @Test
+    void duplicateNamesUseTheLastIndex() {
+        NameTable table = new NameTable(new String[]{"a", "b", "a"});
+        assertEquals(2, table.find("a"));
+        assertEquals(1, table.find("b"));
+        assertEquals(-1, table.quotedLength(0));
+        assertEquals(3, table.quotedLength(2));
+    }
+
+    public static class Colliding {
+        public int Aa;
+        public int BB;
+        public String AaAa;
+        public String BBBB;
+        public String AaBB;
+        public String BBAa;
+    }
+
+    /**
+     * 同一个类中hash相同的字段，按声明顺序、乱序以及在窗口边界读取都能找到正确的字段
+     */
+    @Test
+    void collidingFieldNames() throws Exception {
+        String[] documents = {
+                "{\"Aa\":1,\"BB\":2,\"AaAa\":\"w\",\"BBBB\":\"x\",\"AaBB\":\"y\",\"BBAa\":\"z\"}",
+                "{\"BBAa\":\"z\",\"AaBB\":\"y\",\"unknown\":[1],\"BBBB\":\"x\",\"BB\":2,\"AaAa\":\"w\",\"Aa\":1}",
+                "{\"\\u0041a\":1,\"B\\u0042\":2,\"AaAa\":\"w\",\"BBBB\":\"x\",\"AaBB\":\"y\",\"BBAa\":\"z\",\"BA\":3}"
+        };
+        Zson zson = new Zson();
+        zson.setStreamBufferSize(16);
+        for (String json : documents) {
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            Colliding[] results = {
+                    zson.deserialize(json, Colliding.class),
+                    zson.deserialize(utf8, 0, utf8.length, Colliding.class),
+                    zson.deserialize(new ByteArrayInputStream(utf8), Colliding.class),
+                    zson.deserialize(new StringReader(json), Colliding.class)
+            };
+            for (Colliding result : results) {
+                assertEquals(1, result.Aa);
+                assertEquals(2, result.BB);
+                assertEquals("w", result.AaAa);
+                assertEquals("x", result.BBBB);
+                assertEquals("y", result.AaBB);
+                assertEquals("z", result.BBAa);
+            }
+        }
+    }
+
+    private static void assertFindsAll(NameTable table, String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            char[] chars = (" \"" + names[i] + "\"").toCharArray();
+            byte[] bytes = (" \"" + names[i] + "\"").getBytes(StandardCharsets.UTF_8);
+            int hash = names[i].hashCode();
+            assertEquals(i, table.find(names[i]));
+            assertEquals(i, table.find(chars, 2, names[i].length(), hash));
+            assertEquals(i, table.find(bytes, 2, names[i].length(), hash));
+            assertEquals(names[i].length() + 2, table.quotedLength(i));
+            assertTrue(table.matchesQuoted(i, chars, 1));
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NumberFormatterTest {
+
+    private static String format(double value) {
+        char[] buf = new char[NumberFormatter.MAX_LENGTH];
+        return new String(buf, 0, NumberFormatter.formatDouble(value, buf, 0));
+    }
+
+    private static String format(float value) {
+        char[] buf = new char[NumberFormatter.MAX_LENGTH];
+        return new String(buf, 0, NumberFormatter.formatFloat(value, buf, 0));
+    }
+
+    @Test
+    void doubleBoundaries() {
+        assertEquals("0.0", format(0.0));
+        assertEquals("-0.0", format(-0.0));
+        assertEquals("4.9E-324", format(Double.MIN_VALUE));
+        assertEquals("-4.9E-324", format(-Double.MIN_VALUE));
+        assertEquals("2.2250738585072014E-308", format(Double.MIN_NORMAL));
+        assertEquals("2.225073858507201E-308", format(Math.nextDown(Double.MIN_NORMAL)));
+        assertEquals("1.7976931348623157E308", format(Double.MAX_VALUE));
+        assertEquals("1.0", format(1.0));
+        assertEquals("0.1", format(0.1));
+        assertEquals("0.30000000000000004", format(0.1 + 0.2));
+        assertEquals("0.001", format(0.001));
+        assertEquals("9.99E-4", format(0.000999));
+        assertEquals("9999999.0", format(9999999.0));
+        assertEquals("1.0E7", format(1.0E7));
+        assertEquals("2.0E23", format(2.0E23));
+        assertEquals("9.007199254740992E15", format(9007199254740992.0));
+        assertEquals("NaN", format(Double.NaN));
+        assertEquals("Infinity", format(Double.POSITIVE_INFINITY));
+        assertEquals("-Infinity", format(Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    void floatBoundaries() {
+        assertEquals("0.0", format(0.0f));
+        assertEquals("-0.0", format(-0.0f));
+        assertEquals("1.4E-45", format(Float.MIN_VALUE));
+        assertEquals("1.1754944E-38", format(Float.MIN_NORMAL));
+        assertEquals("3.4028235E38", format(Float.MAX_VALUE));
+        assertEquals("0.1", format(0.1f));
+        assertEquals("1.0E7", format(1.0E7f));
+        assertEquals("9999999.0", format(9999999.0f));
+        assertEquals("0.001", format(0.001f));
+        assertEquals("1.0E10", format(1.0E10f));
+    }
+
+    @Test
+    void powersOfTwo() {
+        for (int e = -1074; e <= 1023; e++) {
+            double value = Math.scalb(1.0, e);
+            assertShortest(value);
+            assertShortest(-value);
+        }
+        for (int e = -149; e <= 127; e++) {
+            assertShortest(Math.scalb(1.0f, e));
+        }
+    }
+
+    @Test
+    void subnormals() {
+        for (long t = 1; t < 1000; t++) {
+            assertShortest(Double.longBitsToDouble(t));
+            assertShortest(Double.longBitsToDouble(0x000FFFFFFFFFFFFFL - t));
+        }
+        for (int t = 1; t < 1000; t++) {
+            assertShortest(Float.intBitsToFloat(t));
+            assertShortest(Float.intBitsToFloat(0x007FFFFF - t));
+        }
+    }
+
+    @Test
+    void randomBits() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+                assertShortest(value);
+            }
+            float f = Float.intBitsToFloat(random.nextInt());
+            if (!Float.isNaN(f) && !Float.isInfinite(f)) {
+                assertShortest(f);
+            }
+        }
+    }
+
+    @Test
+    void randomDecimals() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            // 位数较少的十进制数，输出应当还原出相同的数字
+            long digits = random.nextInt(1000000);
+            int exponent = random.nextInt(40) - 20;
+            double value = new BigDecimal(digits).scaleByPowerOfTen(exponent).doubleValue();
+            assertShortest(value);
+            assertShortest((float) value);
+        }
+    }
+
+    /**
+     * 输出能还原出原值，格式与Double.toString相同，且没有更短的十进制数能还原出原值。
+     * 输出至少有两位有效数字(例如4.9E-324而不是5E-324)，所以只检查两位以上的结果
+     */
+    private static void assertShortest(double value) {
+        String text = format(value);
+        assertEquals(Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(Double.parseDouble(text)), text);
+        assertNotation(Math.abs(value), text);
+        if (value == 0) {
+            return;
+        }
+        int digits = new BigDecimal(text).stripTrailingZeros().precision();
+        if (digits > 2) {
+            BigDecimal exact = new BigDecimal(value);
+            for (RoundingMode mode : new RoundingMode[]{RoundingMode.FLOOR, RoundingMode.CEILING}) {
+                BigDecimal shorter = exact.round(new MathContext(digits - 1, mode));
+                assertNotEquals(value, Double.parseDouble(shorter.toString()), text + " is not the shortest");
+            }
+        }
+    }
+
+    private static void assertShortest(float value) {
+        String text = format(value);
+        assertEquals(Float.floatToRawIntBits(value), Float.floatToRawIntBits(Float.parseFloat(text)), text);
+        assertNotation(Math.abs(value), text);
+        if (value == 0) {
+            return;
+        }
+        int digits = new BigDecimal(text).stripTrailingZeros().precision();
+        if (digits > 2) {
+            BigDecimal exact = new BigDecimal(value);
+            for (RoundingMode mode : new RoundingMode[]{RoundingMode.FLOOR, RoundingMode.CEILING}) {
+                BigDecimal shorter = exact.round(new MathContext(digits - 1, mode));
+                assertNotEquals(value, Float.parseFloat(shorter.toString()), text + " is not the shortest");
+            }
+        }
+    }
+
+    /**
+     * 10^-3 <= |v| < 10^7时为普通小数，否则为科学计数法
+     */
+    private static void assertNotation(double magnitude, String text) {
+        boolean plain = magnitude == 0 || (magnitude >= 1e-3 && magnitude < 1e7);
+        assertEquals(plain, text.indexOf('E') < 0, text);
+        assertTrue(text.indexOf('.') > 0, text);
+    }
+
+}
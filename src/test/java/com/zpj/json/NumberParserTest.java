@@ -0,0 +1,183 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 通过各种JsonReader读取数字，结果必须与Double.parseDouble、Float.parseFloat逐位相同
+ */
+class NumberParserTest {
+
+    private static final String[] CASES = {
+            "0", "-0", "0.0", "-0.0", "0e999", "-0e-999", "1", "-1", "0.1", "0.2", "0.3", "1.5", "123.456e7",
+            "9007199254740992", "9007199254740993", "9007199254740994", "9007199254740995",
+            "18446744073709551615", "18446744073709551616", "12345678901234567890123",
+            "0.1000000000000000055511151231257827021181583404541015625",
+            "0.1000000000000000055511151231257827021181583404541015624",
+            "0.1000000000000000055511151231257827021181583404541015626",
+            "1e308", "1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308", "1e309",
+            "1e-307", "2.2250738585072011e-308", "2.2250738585072012e-308", "2.2250738585072014E-308",
+            "4.9e-324", "4.9406564584124654e-324", "2.4703282292062327e-324", "2.4703282292062328e-324",
+            "1e-323", "1e-324", "1e-400", "123456789012345678901234567890e-330",
+            "3.4028235e38", "3.4028236e38", "3.40282357e38", "1.17549435e-38", "1.4e-45", "7.0e-46", "7.1e-46",
+            "2.5e-1", "1e22", "1e23", "8.41e21", "5e-20", "9.109e-31", "6.02214076e23",
+            "0.000000000000000000000000000000000000000000001", "100000000000000000000000000000000000000000000",
+    };
+
+    @Test
+    void knownCases() {
+        for (String text : CASES) {
+            assertParses(text);
+        }
+    }
+
+    @Test
+    void halfwayCases() {
+        Random random = new Random(11);
+        for (int i = 0; i < 20000; i++) {
+            double value = Math.abs(Double.longBitsToDouble(random.nextLong()));
+            if (Double.isNaN(value) || Double.isInfinite(value) || value == Double.MAX_VALUE) {
+                continue;
+            }
+            // 相邻两个double正中间的十进制数，以及略大和略小的值
+            BigDecimal mid = new BigDecimal(value).add(new BigDecimal(Math.nextUp(value))).divide(BigDecimal.valueOf(2));
+            BigDecimal epsilon = BigDecimal.ONE.scaleByPowerOfTen(-mid.scale() - 3);
+            assertParses(mid.toString());
+            assertParses(mid.add(epsilon).toString());
+            assertParses(mid.subtract(epsilon).toString());
+
+            float f = Math.abs(Float.intBitsToFloat(random.nextInt()));
+            if (Float.isNaN(f) || Float.isInfinite(f) || f == Float.MAX_VALUE) {
+                continue;
+            }
+            BigDecimal fmid = new BigDecimal(f).add(new BigDecimal(Math.nextUp(f))).divide(BigDecimal.valueOf(2));
+            assertParses(fmid.toString());
+            assertParses(fmid.add(BigDecimal.ONE.scaleByPowerOfTen(-fmid.scale() - 3)).toString());
+        }
+    }
+
+    @Test
+    void randomNumbers() {
+        Random random = new Random(5);
+        for (int i = 0; i < 50000; i++) {
+            StringBuilder text = new StringBuilder();
+            if (random.nextBoolean()) {
+                text.append('-');
+            }
+            int digits = 1 + random.nextInt(25);
+            text.append(1 + random.nextInt(9));
+            for (int j = 1; j < digits; j++) {
+                text.append(random.nextInt(10));
+            }
+            if (random.nextBoolean()) {
+                text.insert(text.length() - random.nextInt(digits), '.');
+                if (text.charAt(text.length() - 1) == '.') {
+                    text.append('0');
+                }
+            }
+            text.append('e').append(random.nextInt(700) - 350);
+            assertParses(text.toString());
+        }
+    }
+
+    @Test
+    void eiselLemireMatchesBigDecimal() {
+        Random random = new Random(3);
+        for (int i = 0; i < 100000; i++) {
+            long mantissa = random.nextLong() & Long.MAX_VALUE;
+            int exponent = random.nextInt(700) - 350;
+            BigDecimal exact = new BigDecimal(mantissa).scaleByPowerOfTen(exponent);
+            double value = NumberParser.toDouble(mantissa, exponent, false);
+            // NaN表示无法确定舍入方向，由调用者回退到Double.parseDouble
+            if (value == value) {
+                assertEquals(Double.doubleToRawLongBits(exact.doubleValue()), Double.doubleToRawLongBits(value),
+                        mantissa + "e" + exponent);
+            }
+            float f = NumberParser.toFloat(mantissa, exponent, true);
+            if (f == f) {
+                assertEquals(Float.floatToRawIntBits(exact.negate().floatValue()), Float.floatToRawIntBits(f),
+                        "-" + mantissa + "e" + exponent);
+            }
+        }
+    }
+
+    @Test
+    void nonFiniteLiterals() {
+        for (String text : new String[]{"NaN", "Infinity", "-Infinity"}) {
+            assertParses(text);
+        }
+    }
+
+    @Test
+    void malformedNumbers() {
+        String[] cases = {"1e", "-", "1.", ".5", "-.5", "1e+", "1E-", "1.e5", "--1", "+1", "x", "-x", "0.e1", "1.5e"};
+        for (String text : cases) {
+            for (JsonReader reader : readers(text)) {
+                assertMalformed(text, reader::nextDouble);
+            }
+            for (JsonReader reader : readers(text)) {
+                assertMalformed(text, reader::nextFloat);
+            }
+        }
+    }
+
+    @Test
+    void malformedNumbersInDocuments() {
+        Zson zson = new Zson();
+        for (String json : new String[]{"{\"d\":1e}", "{\"d\":-}", "{\"d\":.5}", "{\"d\":1.}", "{\"f\":1e}"}) {
+            assertMalformed(json, () -> zson.deserialize(json, Numbers.class));
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            assertMalformed(json, () -> zson.deserialize(utf8, 0, utf8.length, Numbers.class));
+        }
+    }
+
+    public static class Numbers {
+        public double d;
+        public float f;
+    }
+
+    /**
+     * 与整数一样报告带位置的语法错误，而不是NumberFormatException
+     */
+    private static void assertMalformed(String text, org.junit.jupiter.api.function.Executable executable) {
+        RuntimeException e = assertThrows(RuntimeException.class, executable, text);
+        assertTrue(!(e instanceof NumberFormatException) && e.getMessage().startsWith("The format of json is incorrect!"),
+                text + ": " + e);
+    }
+
+    private static void assertParses(String text) {
+        long expected = Double.doubleToRawLongBits(Double.parseDouble(text));
+        int expectedFloat = Float.floatToRawIntBits(Float.parseFloat(text));
+        for (JsonReader reader : readers(text)) {
+            assertEquals(expected, Double.doubleToRawLongBits(reader.nextDouble()), text + " " + reader.getClass());
+        }
+        for (JsonReader reader : readers(text)) {
+            assertEquals(expectedFloat, Float.floatToRawIntBits(reader.nextFloat()), text + " " + reader.getClass());
+        }
+    }
+
+    /**
+     * 内存中的字符串和字节数组，以及窗口很小、数字会跨越缓冲区边界的流
+     */
+    private static List<JsonReader> readers(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        List<JsonReader> readers = new ArrayList<>();
+        readers.add(new CharJsonReader(text));
+        readers.add(new CharJsonReader(new StringReader(text), 16));
+        readers.add(new Utf8JsonReader(utf8, 0, utf8.length));
+        readers.add(new Utf8JsonReader(new ByteArrayInputStream(utf8), 16));
+        return readers;
+    }
+
+}
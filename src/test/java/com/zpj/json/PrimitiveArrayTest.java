@@ -0,0 +1,122 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 八种基本类型数组的读写，包括空数组、null和超过初始容量需要扩容的数组
+ */
+class PrimitiveArrayTest {
+
+    public static class Arrays {
+        public int[] ints;
+        public long[] longs;
+        public short[] shorts;
+        public byte[] bytes;
+        public char[] chars;
+        public float[] floats;
+        public double[] doubles;
+        public boolean[] booleans;
+    }
+
+    private static final String JSON = "{\"ints\":[0,-1,2147483647,-2147483648],"
+            + "\"longs\":[9223372036854775807,-9223372036854775808],"
+            + "\"shorts\":[32767,-32768],\"bytes\":[127,-128,0],\"chars\":[97,20013],"
+            + "\"floats\":[1.5,-0.0,3.4028235E38],\"doubles\":[0.1,-1.0E-300,1.7976931348623157E308],"
+            + "\"booleans\":[true,false]}";
+
+    @Test
+    void allTypesBothDirections() throws Exception {
+        Zson zson = new Zson();
+        Arrays arrays = zson.deserialize(JSON, Arrays.class);
+        assertArrayEquals(new int[]{0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE}, arrays.ints);
+        assertArrayEquals(new long[]{Long.MAX_VALUE, Long.MIN_VALUE}, arrays.longs);
+        assertArrayEquals(new short[]{Short.MAX_VALUE, Short.MIN_VALUE}, arrays.shorts);
+        assertArrayEquals(new byte[]{Byte.MAX_VALUE, Byte.MIN_VALUE, 0}, arrays.bytes);
+        assertArrayEquals(new char[]{'a', '中'}, arrays.chars);
+        assertArrayEquals(new float[]{1.5f, -0.0f, Float.MAX_VALUE}, arrays.floats);
+        assertArrayEquals(new double[]{0.1, -1e-300, Double.MAX_VALUE}, arrays.doubles);
+        assertArrayEquals(new boolean[]{true, false}, arrays.booleans);
+        assertEquals(JSON, zson.serialize(arrays));
+
+        byte[] utf8 = JSON.getBytes(StandardCharsets.UTF_8);
+        assertEquals(JSON, zson.serialize(zson.deserialize(utf8, 0, utf8.length, Arrays.class)));
+    }
+
+    @Test
+    void emptyAndNull() throws Exception {
+        Zson zson = new Zson();
+        String json = "{\"ints\":[],\"longs\":null,\"shorts\":[],\"bytes\":null,\"chars\":[],"
+                + "\"floats\":null,\"doubles\":[],\"booleans\":[]}";
+        Arrays arrays = zson.deserialize(json, Arrays.class);
+        assertEquals(0, arrays.ints.length);
+        assertNull(arrays.longs);
+        assertEquals(0, arrays.booleans.length);
+        assertEquals(json, zson.serialize(arrays));
+    }
+
+    /**
+     * 跨过多次扩容，结果长度与元素个数相同
+     */
+    @Test
+    void growsPastInitialCapacity() throws Exception {
+        Zson zson = new Zson();
+        for (int size : new int[]{15, 16, 17, 33, 10000}) {
+            Arrays arrays = new Arrays();
+            arrays.ints = new int[size];
+            arrays.longs = new long[size];
+            arrays.shorts = new short[size];
+            arrays.bytes = new byte[size];
+            arrays.chars = new char[size];
+            arrays.floats = new float[size];
+            arrays.doubles = new double[size];
+            arrays.booleans = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                arrays.ints[i] = i * 31 - size;
+                arrays.longs[i] = (long) i << 40;
+                arrays.shorts[i] = (short) (i - 128);
+                arrays.bytes[i] = (byte) i;
+                arrays.chars[i] = (char) (i * 7);
+                arrays.floats[i] = i / 3f;
+                arrays.doubles[i] = Math.sin(i);
+                arrays.booleans[i] = i % 3 == 0;
+            }
+            String json = zson.serialize(arrays);
+            Arrays copy = zson.deserialize(json, Arrays.class);
+            assertArrayEquals(arrays.ints, copy.ints);
+            assertArrayEquals(arrays.longs, copy.longs);
+            assertArrayEquals(arrays.shorts, copy.shorts);
+            assertArrayEquals(arrays.bytes, copy.bytes);
+            assertArrayEquals(arrays.chars, copy.chars);
+            assertArrayEquals(arrays.floats, copy.floats);
+            assertArrayEquals(arrays.doubles, copy.doubles);
+            assertArrayEquals(arrays.booleans, copy.booleans);
+        }
+    }
+
+    @Test
+    void rootAndNestedArrays() throws Exception {
+        Zson zson = new Zson();
+        assertArrayEquals(new double[]{1, 2.5}, zson.deserialize("[1,2.5]", double[].class));
+        assertEquals("[1.0,2.5]", zson.serialize(new double[]{1, 2.5}));
+        int[][] nested = zson.deserialize("[[1],[],null,[2,3]]", int[][].class);
+        assertArrayEquals(new int[][]{{1}, {}, null, {2, 3}}, nested);
+        assertEquals("[[1],[],null,[2,3]]", zson.serialize(nested));
+    }
+
+    @Test
+    void outOfRangeValues() {
+        Zson zson = new Zson();
+        assertThrows(RuntimeException.class, () -> zson.deserialize("{\"shorts\":[32768]}", Arrays.class));
+        assertThrows(RuntimeException.class, () -> zson.deserialize("{\"bytes\":[1,-129]}", Arrays.class));
+        assertThrows(RuntimeException.class, () -> zson.deserialize("{\"ints\":[2147483648]}", Arrays.class));
+        assertThrows(RuntimeException.class, () -> zson.deserialize("{\"booleans\":[1]}", Arrays.class));
+    }
+
+}
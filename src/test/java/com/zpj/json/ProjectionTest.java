@@ -0,0 +1,138 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProjectionTest {
+
+    public static class Inner {
+        public int a = -1;
+        public String b = "init";
+        public List<Inner> kids;
+    }
+
+    public static class Outer {
+        public int x = -7;
+        public double d;
+        public Inner bean;
+        public Map<String, Map<String, List<String>>> map3;
+        public List<Inner> list;
+        public Inner[] array;
+    }
+
+    private static final String JSON = "{\"x\":5,\"bean\":{\"a\":3,\"b\":\"q\",\"kids\":[{\"a\":9,\"b\":\"z\"}]},"
+            + "\"map3\":{\"zpj\":{\"1\":[\"a\"]},\"other\":{\"2\":[\"b\"]}},"
+            + "\"list\":[{\"a\":1,\"b\":\"x\"},{\"a\":2,\"b\":\"y\",\"kids\":[{\"a\":4,\"b\":\"w\"}]}],"
+            + "\"array\":[{\"a\":6,\"b\":\"v\"}],\"d\":1.5,\"unknown\":[1,{\"a\":[]}]}";
+
+    /**
+     * 分别从String、byte[]和InputStream读取
+     */
+    private static Outer read(Zson zson, String json, Projection projection, int source) throws Exception {
+        byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+        switch (source) {
+            case 0:
+                return zson.deserialize(json, Outer.class, projection);
+            case 1:
+                return zson.deserialize(utf8, 0, utf8.length, Outer.class, projection);
+            default:
+                return zson.deserialize(new ByteArrayInputStream(utf8), Outer.class, projection);
+        }
+    }
+
+    @Test
+    void nestedPathsAndArraysOfObjects() throws Exception {
+        Projection projection = Projection.of("bean.a", "map3.zpj", "list.b", "list.kids.a", "array.a");
+        for (boolean indexed : new boolean[]{false, true}) {
+            Zson zson = new Zson();
+            zson.setStructuralIndexEnabled(indexed);
+            for (int source = 0; source < 3; source++) {
+                Outer outer = read(zson, JSON, projection, source);
+                assertEquals(-7, outer.x);
+                assertEquals(0, outer.d);
+                assertEquals(3, outer.bean.a);
+                assertEquals("init", outer.bean.b);
+                assertNull(outer.bean.kids);
+                assertEquals(Collections.singleton("zpj"), outer.map3.keySet());
+                assertEquals(Collections.singletonList("a"), outer.map3.get("zpj").get("1"));
+                assertEquals(2, outer.list.size());
+                assertEquals(-1, outer.list.get(0).a);
+                assertEquals("x", outer.list.get(0).b);
+                assertEquals(4, outer.list.get(1).kids.get(0).a);
+                assertEquals("init", outer.list.get(1).kids.get(0).b);
+                assertEquals(1, outer.array.length);
+                assertEquals(6, outer.array[0].a);
+                assertEquals("init", outer.array[0].b);
+            }
+        }
+    }
+
+    @Test
+    void wholeValueWinsOverDeeperPaths() throws Exception {
+        Outer outer = new Zson().deserialize(JSON, Outer.class, Projection.of("bean", "bean.a", "x"));
+        assertEquals(5, outer.x);
+        assertEquals("q", outer.bean.b);
+        assertEquals(9, outer.bean.kids.get(0).a);
+        assertNull(outer.map3);
+        assertNull(outer.list);
+    }
+
+    @Test
+    void unknownPathsBindNothing() throws Exception {
+        Projection projection = Projection.of("unknown.a", "missing", "bean.missing", "map3.none");
+        for (int source = 0; source < 3; source++) {
+            Outer outer = read(new Zson(), JSON, projection, source);
+            assertEquals(-7, outer.x);
+            assertNull(outer.list);
+            assertEquals(-1, outer.bean.a);
+            assertNull(outer.bean.kids);
+            assertEquals(Collections.emptyMap(), outer.map3);
+        }
+    }
+
+    @Test
+    void projectionIsReusableAcrossInstances() throws Exception {
+        Projection projection = Projection.of("list.a");
+        Projection other = Projection.of("list.b");
+        Zson first = new Zson();
+        Zson second = new Zson();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2, read(first, JSON, projection, 0).list.get(1).a);
+            assertEquals("init", read(second, JSON, projection, 1).list.get(1).b);
+            // 同一个类交替使用不同的Projection
+            assertEquals(-1, read(first, JSON, other, 2).list.get(1).a);
+        }
+        // 不使用Projection时绑定全部字段
+        Outer full = first.deserialize(JSON, Outer.class);
+        assertEquals(1.5, full.d);
+        assertEquals(2, full.map3.size());
+    }
+
+    @Test
+    void planFollowsFieldOrder() {
+        Projection projection = Projection.of("b.c", "a");
+        Projection[] plan = projection.plan(new String[]{"a", "x", "b"});
+        assertEquals(3, plan.length);
+        assertEquals(true, plan[0].isLeaf());
+        assertNull(plan[1]);
+        assertArrayEquals(new Projection[]{plan[2].child("c")}, projection.child("b").plan(new String[]{"c"}));
+    }
+
+    @Test
+    void invalidPaths() {
+        assertThrows(IllegalArgumentException.class, () -> Projection.of("a..b"));
+        assertThrows(IllegalArgumentException.class, () -> Projection.of(".a"));
+        assertThrows(IllegalArgumentException.class, Projection::of);
+    }
+
+}
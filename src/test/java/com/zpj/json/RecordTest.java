@@ -0,0 +1,147 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 项目以java 8为目标，record示例在运行时用当前jdk编译，jdk低于16时跳过
+ */
+class RecordTest {
+
+    private static final String SOURCE = "package demo;\n"
+            + "import com.zpj.json.Serialize;\n"
+            + "import java.util.*;\n"
+            + "public class Records {\n"
+            + "    public record Point(int x, long y, double z, boolean flag, char c, @Serialize(name = \"label\") String name) {}\n"
+            + "    public record Box<T>(T value, List<T> items, Map<String, T> byName) {}\n"
+            + "    public record Holder(Box<Point> points, Box<Integer> numbers, Point[] array, Point single) {}\n"
+            + "    public record Positive(int value) {\n"
+            + "        public Positive {\n"
+            + "            if (value < 0) throw new IllegalArgumentException(\"negative\");\n"
+            + "        }\n"
+            + "    }\n"
+            + "}\n";
+
+    @TempDir
+    static Path dir;
+
+    private static URLClassLoader loader;
+
+    @BeforeAll
+    static void compile() throws Exception {
+        assumeTrue(isRecordSupported(), "records need jdk 16+");
+        Path src = dir.resolve("src/demo");
+        Path out = dir.resolve("out");
+        Files.createDirectories(src);
+        Files.createDirectories(out);
+        Files.write(src.resolve("Records.java"), SOURCE.getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, errors, "-proc:none", "-classpath", System.getProperty("java.class.path"),
+                "-d", out.toString(), src.resolve("Records.java").toString());
+        assertEquals(0, result, new String(errors.toByteArray(), StandardCharsets.UTF_8));
+        loader = new URLClassLoader(new URL[]{out.toUri().toURL()}, RecordTest.class.getClassLoader());
+    }
+
+    private static boolean isRecordSupported() {
+        try {
+            Method isRecord = Class.class.getMethod("isRecord");
+            return isRecord != null;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<Object> load(String name) throws ClassNotFoundException {
+        return (Class<Object>) loader.loadClass("demo.Records$" + name);
+    }
+
+    /**
+     * 分别从String、byte[]和InputStream读取后再序列化
+     */
+    private static void assertRoundTrip(Zson zson, String json, Class<Object> type, String expected) throws Exception {
+        byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected, zson.serialize(zson.deserialize(json, type)));
+        assertEquals(expected, zson.serialize(zson.deserialize(utf8, 0, utf8.length, type)));
+        assertEquals(expected, zson.serialize(zson.deserialize(new ByteArrayInputStream(utf8), type)));
+    }
+
+    @Test
+    void allComponents() throws Exception {
+        Class<Object> point = load("Point");
+        String json = "{\"x\":1,\"y\":-9223372036854775808,\"z\":2.5,\"flag\":true,\"c\":65,\"label\":\"p\"}";
+        assertRoundTrip(new Zson(), json, point, json);
+        // 乱序、未知字段和被@Serialize改名的java名字都不影响结果
+        assertRoundTrip(new Zson(), "{\"label\":\"p\",\"name\":\"ignored\",\"unknown\":{\"x\":9},\"c\":65,\"z\":2.5,"
+                + "\"flag\":true,\"y\":-9223372036854775808,\"x\":1}", point, json);
+    }
+
+    /**
+     * json中缺少的组件按类型的默认值传给构造方法
+     */
+    @Test
+    void missingComponentsUseDefaults() throws Exception {
+        Class<Object> point = load("Point");
+        String defaults = "{\"x\":0,\"y\":0,\"z\":0.0,\"flag\":false,\"c\":0,\"label\":null}";
+        assertRoundTrip(new Zson(), "{}", point, defaults);
+        assertRoundTrip(new Zson(), "{\"y\":3,\"label\":null}", point, defaults.replace("\"y\":0", "\"y\":3"));
+    }
+
+    @Test
+    void nestedAndGenericComponents() throws Exception {
+        Class<Object> holder = load("Holder");
+        String json = "{\"points\":{\"value\":{\"x\":1,\"y\":2,\"z\":0.5,\"flag\":true,\"c\":97,\"label\":\"a\"},"
+                + "\"items\":[{\"x\":3,\"y\":0,\"z\":0.0,\"flag\":false,\"c\":0,\"label\":null}],"
+                + "\"byName\":{\"k\":{\"x\":4,\"y\":0,\"z\":0.0,\"flag\":false,\"c\":0,\"label\":\"b\"}}},"
+                + "\"numbers\":{\"value\":7,\"items\":[1,2,3],\"byName\":{\"n\":8}},"
+                + "\"array\":[{\"x\":5,\"y\":0,\"z\":0.0,\"flag\":false,\"c\":0,\"label\":null},null],"
+                + "\"single\":null}";
+        assertRoundTrip(new Zson(), json, holder, json);
+
+        // 根类型为参数化的record
+        Type boxOfLongs = ReflectUtils.newParameterizedTypeWithOwner(loader.loadClass("demo.Records"), load("Box"), Long.class);
+        Object box = new Zson().deserialize(new StringReader("{\"value\":12345678901234,\"items\":[1],\"byName\":{}}"), boxOfLongs);
+        assertEquals(12345678901234L, box.getClass().getMethod("value").invoke(box));
+        assertEquals(Collections.singletonList(1L), box.getClass().getMethod("items").invoke(box));
+        assertEquals(Collections.emptyMap(), box.getClass().getMethod("byName").invoke(box));
+    }
+
+    @Test
+    void projection() throws Exception {
+        Class<Object> holder = load("Holder");
+        String json = "{\"points\":{\"value\":{\"x\":1,\"label\":\"a\"},\"items\":[{\"x\":3}]},"
+                + "\"numbers\":{\"value\":7,\"items\":[1,2,3]},\"single\":{\"x\":9,\"y\":9}}";
+        Object result = new Zson().deserialize(json, holder, Projection.of("points.value.x", "single.y"));
+        assertEquals("{\"points\":{\"value\":{\"x\":1,\"y\":0,\"z\":0.0,\"flag\":false,\"c\":0,\"label\":null},"
+                + "\"items\":null,\"byName\":null},\"numbers\":null,\"array\":null,"
+                + "\"single\":{\"x\":0,\"y\":9,\"z\":0.0,\"flag\":false,\"c\":0,\"label\":null}}", new Zson().serialize(result));
+    }
+
+    @Test
+    void constructorValidation() throws Exception {
+        Class<Object> positive = load("Positive");
+        assertEquals("{\"value\":3}", new Zson().serialize(new Zson().deserialize("{\"value\":3}", positive)));
+        assertThrows(IllegalArgumentException.class, () -> new Zson().deserialize("{\"value\":-1}", positive));
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 从Reader、InputStream和堆外ByteBuffer读取时，字段名、字符串、数字和多字节UTF-8字符
+ * 在窗口边界的任意位置被截断，结果都必须与一次性读入时相同
+ */
+class StreamingTest {
+
+    public static class Item {
+        public String aVeryLongFieldNameThatDoesNotFitInOneWindow;
+        @Serialize(name = "名字")
+        public String name;
+        public long id;
+        public double ratio;
+        public float small;
+        public boolean flag;
+        public List<String> tags;
+        public Map<String, Integer> counts;
+        public Item next;
+    }
+
+    private static final String JSON = "{\"aVeryLongFieldNameThatDoesNotFitInOneWindow\":\"a\\\"b\\\\c\\nd\\u00e9\\ud83d\\ude00\","
+            + "\"名字\":\"中文é😀ab\",\"id\":-9223372036854775808,\"ratio\":-1.2345678901234567e-300,\"small\":3.5E2,"
+            + "\"flag\":true,\"tags\":[\"\",\"x\",\"\\u4e2d\\u6587\",\"𝄞𝄞𝄞𝄞\"],"
+            + "\"counts\":{\"ключ\":1,\"k\\u0065y\":-2,\"longKeyLongKeyLongKey\":2147483647},"
+            + "\"unknown\":{\"skip\":[1.5e10,\"\\\"]}\",null,\"é中😀\"]},"
+            + "\"next\":{\"id\":12345678901234,\"ratio\":0.1,\"name\":null,\"tags\":[]}}";
+
+    private static final int[] WINDOWS = {1, 16, 17, 23, 31};
+
+    @Test
+    void valuesSplitAtEveryOffset() throws Exception {
+        Zson zson = new Zson();
+        Item expected = zson.deserialize(JSON, Item.class);
+        assertEquals("a\"b\\c\ndé😀", expected.aVeryLongFieldNameThatDoesNotFitInOneWindow);
+        assertEquals("中文é😀ab", expected.name);
+        assertEquals(Long.MIN_VALUE, expected.id);
+        assertEquals(-1.2345678901234567e-300, expected.ratio);
+        assertEquals(350f, expected.small);
+        assertEquals(Arrays.asList("", "x", "中文", "𝄞𝄞𝄞𝄞"), expected.tags);
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("ключ", 1);
+        counts.put("key", -2);
+        counts.put("longKeyLongKeyLongKey", Integer.MAX_VALUE);
+        assertEquals(counts, expected.counts);
+        assertEquals(12345678901234L, expected.next.id);
+        String serialized = zson.serialize(expected);
+
+        for (int window : WINDOWS) {
+            Zson streaming = new Zson();
+            streaming.setStreamBufferSize(window);
+            // 前面填充不同数量的空白，使每个token都在窗口内的不同位置开始
+            for (int padding = 0; padding < 40; padding++) {
+                String json = spaces(padding) + JSON;
+                byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+                assertEquals(serialized, streaming.serialize(streaming.<Item>deserialize(new StringReader(json), Item.class)));
+                assertEquals(serialized, streaming.serialize(streaming.<Item>deserialize(new TrickleReader(json), Item.class)));
+                assertEquals(serialized, streaming.serialize(streaming.<Item>deserialize(new ByteArrayInputStream(utf8), Item.class)));
+                assertEquals(serialized, streaming.serialize(streaming.<Item>deserialize(new TrickleInputStream(utf8), Item.class)));
+                ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length);
+                direct.put(utf8).flip();
+                assertEquals(serialized, streaming.serialize(streaming.deserialize(direct, Item.class)));
+            }
+        }
+    }
+
+    @Test
+    void readerPrimitivesAcrossWindows() throws Exception {
+        String json = "[\"é中😀\",12345678901234567,-0.0,1e-7,\"\\ud83d\\ude00x\",true,null,{\"名字\":[]}]";
+        for (int padding = 0; padding < 20; padding++) {
+            String padded = spaces(padding) + json;
+            byte[] utf8 = padded.getBytes(StandardCharsets.UTF_8);
+            JsonReader[] readers = {
+                    new CharJsonReader(new TrickleReader(padded), 16),
+                    new Utf8JsonReader(new TrickleInputStream(utf8), 16),
+                    new Utf8JsonReader(new ByteArrayInputStream(utf8), 16)
+            };
+            for (JsonReader reader : readers) {
+                reader.beginArray();
+                assertEquals("é中😀", reader.nextString());
+                assertEquals(12345678901234567L, reader.nextLong());
+                assertEquals(-0.0, reader.nextDouble());
+                assertEquals(1e-7, reader.nextDouble());
+                assertEquals("😀x", reader.nextString());
+                assertEquals(true, reader.nextBoolean());
+                assertTrue(reader.nextNull());
+                assertEquals("{\"名字\":[]}", reader.nextRaw());
+                reader.endArray();
+            }
+        }
+    }
+
+    @Test
+    void truncatedInput() {
+        Zson zson = new Zson();
+        zson.setStreamBufferSize(16);
+        byte[] utf8 = "{\"name\":\"中文".getBytes(StandardCharsets.UTF_8);
+        // 在多字节字符的中间结束
+        byte[] truncated = Arrays.copyOf(utf8, utf8.length - 1);
+        assertThrows(RuntimeException.class, () -> zson.deserialize(new ByteArrayInputStream(truncated), Item.class));
+        assertThrows(RuntimeException.class, () -> zson.deserialize(new StringReader("{\"id\":12"), Item.class));
+        assertThrows(RuntimeException.class, () -> zson.deserialize(new StringReader("{\"aVeryLongFieldName"), Item.class));
+    }
+
+    private static String spaces(int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, ' ');
+        return new String(chars);
+    }
+
+    /**
+     * 每次最多返回3个字符，模拟网络流
+     */
+    private static final class TrickleReader extends FilterReader {
+
+        private int calls;
+
+        TrickleReader(String json) {
+            super(new StringReader(json));
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, 1 + calls++ % 3));
+        }
+    }
+
+    /**
+     * 每次最多返回3个字节，多字节字符会被拆到不同的read中
+     */
+    private static final class TrickleInputStream extends FilterInputStream {
+
+        private int calls;
+
+        TrickleInputStream(byte[] utf8) {
+            super(new ByteArrayInputStream(utf8));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1 + calls++ % 3));
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 按块扫描的索引必须与逐个字符扫描的结果完全相同
+ */
+class StructuralIndexTest {
+
+    private static final String JSON = "{\"a\":[1,{\"b\":\"]}\"},[]],\"c\":\"\\\"{\"}";
+
+    @Test
+    void tokens() {
+        byte[] utf8 = " { \"k\" : [ true , -1.5e3,\"x\\\"]\" ] ,\"n\":null}x".getBytes(StandardCharsets.UTF_8);
+        int[] expected = {1, 3, 9, 11, 18, 25, 32, 35, 39, 43, 44};
+        for (StructuralIndex index : new StructuralIndex[]{StructuralIndex.of(utf8, 0, utf8.length),
+                StructuralIndex.of(new String(utf8, StandardCharsets.UTF_8).toCharArray(), 0, utf8.length)}) {
+            assertEquals(expected.length, index.size());
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], index.position(i));
+            }
+            // 两个token之间的空白和分隔符一次跳过
+            assertEquals(9, index.nextToken(6));
+            assertEquals(18, index.nextToken(12));
+            assertEquals(32, index.nextToken(31));
+            assertEquals(utf8.length, index.nextToken(45));
+            assertEquals(43, index.closing(1));
+            assertEquals(32, index.closing(9));
+        }
+    }
+
+    @Test
+    void closingPositions() {
+        byte[] utf8 = JSON.getBytes(StandardCharsets.UTF_8);
+        StructuralIndex index = StructuralIndex.of(utf8, 0, utf8.length);
+        assertEquals(utf8.length - 1, index.closing(0));
+        assertEquals(21, index.closing(5));
+        assertEquals(17, index.closing(8));
+        assertEquals(20, index.closing(19));
+        // 不是开括号，以及向前查找
+        assertEquals(-1, index.closing(1));
+        assertEquals(-1, index.closing(13));
+        assertEquals(21, index.closing(5));
+    }
+
+    @Test
+    void unbalancedBrackets() {
+        byte[] utf8 = "]{[}]][".getBytes(StandardCharsets.UTF_8);
+        StructuralIndex index = StructuralIndex.of(utf8, 0, utf8.length);
+        assertEquals(7, index.size());
+        assertEquals(4, index.closing(1));
+        assertEquals(3, index.closing(2));
+        assertEquals(-1, index.closing(6));
+        assertSameAsScalar(utf8);
+    }
+
+    @Test
+    void escapeRunsAcrossBlockBoundaries() {
+        // 不同长度的反斜杠串和引号放在不同的对齐位置，覆盖跨越8字节和64字符边界的转义
+        for (int offset = 0; offset < 72; offset++) {
+            for (int run = 1; run <= 20; run++) {
+                StringBuilder builder = new StringBuilder();
+                for (int i = 0; i < offset; i++) {
+                    builder.append(i % 7 == 0 ? '1' : ' ');
+                }
+                builder.append("[{\"k\":\"");
+                for (int i = 0; i < run; i++) {
+                    builder.append('\\');
+                }
+                // 奇数个反斜杠时引号被转义，字符串继续
+                builder.append("\"]}[\"},[{\"\\\\\"}]");
+                assertSameAsScalar(builder.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void randomInputs() {
+        Random random = new Random(3);
+        String alphabet = "{}[]\"\\\\\" ,:a1é{\"\n";
+        for (int t = 0; t < 20000; t++) {
+            int length = random.nextInt(t % 10 == 0 ? 400 : 140);
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertSameAsScalar(builder.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public static class Inner {
+        public int[] x;
+    }
+
+    public static class Entry {
+        public List<String> list;
+        public Inner inner;
+        public int n;
+        public String s;
+    }
+
+    public static class Document {
+        public Map<String, Entry> entries;
+    }
+
+    /**
+     * 读取器使用索引跳过空白和值，结果与不使用索引时相同
+     */
+    @Test
+    void readerUsesIndex() throws Exception {
+        StringBuilder builder = new StringBuilder("{\n  \"entries\" : {\n");
+        for (int i = 0; i < 200; i++) {
+            builder.append("    \"k").append(i).append("\" : {\n        \"list\" : [ \"a\\\"]\" , \"}\" ],\n")
+                    .append("        \"inner\" : { \"x\" : [ 1 ,\t2 ] , \"skip\" : [ { } , [ ] ] },\n")
+                    .append("        \"n\" : ").append(i).append(" ,\t\"s\":\"").append(i % 3 == 0 ? "é" : "").append("\"\n    }")
+                    .append(i < 199 ? ",\n" : "\n");
+        }
+        String json = builder.append("  }\n}").toString();
+        byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+        Zson plain = new Zson();
+        Zson indexed = new Zson();
+        indexed.setStructuralIndexEnabled(true);
+        String expected = plain.serialize(plain.deserialize(json, Document.class));
+        assertEquals(200, plain.deserialize(json, Document.class).entries.size());
+        assertEquals(expected, indexed.serialize(indexed.deserialize(json, Document.class)));
+        assertEquals(expected, indexed.serialize(indexed.deserialize(utf8, 0, utf8.length, Document.class)));
+
+        JsonPointer pointers = JsonPointer.compile("/entries/k199/inner/skip", "/entries/k0/n", "/entries/k150/s", "/entries/k3/list/1");
+        List<String> values = Arrays.asList(plain.extract(json, pointers));
+        assertEquals("[ { } , [ ] ]", values.get(0));
+        assertEquals(values, Arrays.asList(indexed.extract(json, pointers)));
+        assertEquals(values, Arrays.asList(indexed.extract(utf8, 0, utf8.length, pointers)));
+    }
+
+    /**
+     * 对所有起止位置比较token位置和匹配的括号，byte和char分别比较
+     */
+    private static void assertSameAsScalar(byte[] buf) {
+        char[] chars = new String(buf, StandardCharsets.UTF_8).toCharArray();
+        for (int start = 0; start < Math.min(buf.length, 9); start++) {
+            for (int end = Math.max(start, buf.length - 9); end <= buf.length; end++) {
+                assertSame(StructuralIndex.ofScalar(buf, start, end), StructuralIndex.of(buf, start, end), buf);
+            }
+        }
+        for (int start = 0; start < Math.min(chars.length, 5); start++) {
+            for (int end = Math.max(start, chars.length - 5); end <= chars.length; end++) {
+                assertSame(StructuralIndex.ofScalar(chars, start, end), StructuralIndex.of(chars, start, end), buf);
+            }
+        }
+    }
+
+    private static void assertSame(StructuralIndex scalar, StructuralIndex blocked, byte[] buf) {
+        String message = new String(buf, StandardCharsets.UTF_8);
+        assertEquals(scalar.size(), blocked.size(), message);
+        for (int i = 0; i < scalar.size(); i++) {
+            int position = scalar.position(i);
+            assertEquals(position, blocked.position(i), message);
+            assertEquals(scalar.closing(position), blocked.closing(position), message);
+        }
+    }
+
+}
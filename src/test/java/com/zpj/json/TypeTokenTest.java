@@ -0,0 +1,41 @@
+package com.zpj.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TypeTokenTest {
+
+    @Test
+    void classTokensAreCanonical() {
+        assertSame(TypeToken.get(String.class), TypeToken.get((Type) String.class));
+        assertSame(TypeToken.get(Integer[].class).elementType(), TypeToken.get(Integer.class));
+    }
+
+    @Test
+    void parameterizedTokensCompareByStructure() {
+        Type type = new TypeToken<Map<String, List<Integer>>>() {}.getType();
+        TypeToken<?> a = TypeToken.get(type);
+        TypeToken<?> b = TypeToken.getParameterized(Map.class, String.class,
+                TypeToken.getParameterized(List.class, Integer.class).getType());
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(TypeToken.getParameterized(List.class, Integer.class), a.mapValueType());
+        assertSame(TypeToken.get(String.class), a.mapKeyType());
+    }
+
+    @Test
+    void derivedTypesAreResolvedOnce() {
+        TypeToken<?> token = TypeToken.get(new TypeToken<List<List<String>>>() {}.getType());
+        assertSame(token.elementType(), token.elementType());
+        assertSame(TypeToken.get(String.class), token.elementType().elementType());
+        TypeToken<?> map = TypeToken.getParameterized(Map.class, String.class, Integer.class);
+        assertSame(map.mapValueType(), map.mapValueType());
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.zpj.json.processor;
+
+import com.zpj.json.Zson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * 运行注解处理器编译示例类，比较生成的适配器与反射得到的结果
+ */
+class AdapterProcessorTest {
+
+    private static final String BASE = "package demo;\n"
+            + "public class Base<T> {\n"
+            + "    public int a = 9;\n"
+            + "    public T value;\n"
+            + "    protected transient int ignored = 3;\n"
+            + "    private String secret = \"s\";\n"
+            + "    public String getSecret() { return secret; }\n"
+            + "    public void setSecret(String secret) { this.secret = secret; }\n"
+            + "}\n";
+
+    private static final String USER = "package demo;\n"
+            + "import com.zpj.json.GenerateAdapter;\n"
+            + "import com.zpj.json.Serialize;\n"
+            + "import java.util.*;\n"
+            + "@GenerateAdapter\n"
+            + "public class User extends Base<Integer> {\n"
+            + "    public int a = 5;\n"
+            + "    @Serialize(name = \"user_name\")\n"
+            + "    public String name = \"u\";\n"
+            + "    List<String> tags = new ArrayList<>(Arrays.asList(\"x\", \"y\"));\n"
+            + "    Map<String, Integer> counts = new LinkedHashMap<>();\n"
+            + "    public static int shared = 1;\n"
+            + "    private final long id;\n"
+            + "    final String code = new String(\"c\");\n"
+            + "    public User() { value = 7; counts.put(\"k\", 1); id = 2; }\n"
+            + "    public long getId() { return id; }\n"
+            + "}\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void generatedAdapterMatchesReflection() throws Exception {
+        Path src = dir.resolve("src/demo");
+        Path out = dir.resolve("out");
+        Files.createDirectories(src);
+        Files.createDirectories(out);
+        Files.write(src.resolve("Base.java"), BASE.getBytes(StandardCharsets.UTF_8));
+        Files.write(src.resolve("User.java"), USER.getBytes(StandardCharsets.UTF_8));
+        compile(out, src.resolve("Base.java"), src.resolve("User.java"));
+
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{out.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> type = loader.loadClass("demo.User");
+            assertNotNull(loader.loadClass("demo.User_ZsonAdapter"));
+            assertNotNull(loader.getResource("META-INF/services/com.zpj.json.GeneratedAdapter"));
+
+            // 生成的适配器通过线程上下文类加载器中的META-INF/services加载
+            Zson reflective = new Zson();
+            thread.setContextClassLoader(loader);
+            Zson generated = new Zson();
+
+            Object user = type.getConstructor().newInstance();
+            String expected = reflective.serialize(user);
+            assertEquals("{\"a\":5,\"user_name\":\"u\",\"tags\":[\"x\",\"y\"],\"counts\":{\"k\":1},"
+                    + "\"id\":2,\"code\":\"c\",\"a\":9,\"value\":7,\"secret\":\"s\"}", expected);
+            assertEquals(expected, generated.serialize(user));
+
+            String json = "{\"a\":6,\"user_name\":\"v\",\"tags\":[\"z\"],\"counts\":{},\"value\":8,\"secret\":\"t\","
+                    + "\"id\":3,\"code\":\"d\"}";
+            String roundTrip = reflective.serialize(reflective.deserialize(json, type));
+            // final字段与反射时一样被写入，而不是被忽略
+            assertEquals("{\"a\":5,\"user_name\":\"v\",\"tags\":[\"x\",\"y\",\"z\"],\"counts\":{\"k\":1},"
+                    + "\"id\":3,\"code\":\"d\",\"a\":6,\"value\":8,\"secret\":\"t\"}", roundTrip);
+            assertEquals(roundTrip, generated.serialize(generated.deserialize(json, type)));
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    private static void compile(Path out, Path... sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String[] args = new String[sources.length + 8];
+        int i = 0;
+        args[i++] = "-classpath";
+        args[i++] = System.getProperty("java.class.path");
+        args[i++] = "-processor";
+        args[i++] = AdapterProcessor.class.getName();
+        args[i++] = "-d";
+        args[i++] = out.toString();
+        args[i++] = "-s";
+        args[i++] = out.toString();
+        for (Path source : sources) {
+            args[i++] = source.toString();
+        }
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, errors, args);
+        assertEquals(0, result, new String(errors.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+}
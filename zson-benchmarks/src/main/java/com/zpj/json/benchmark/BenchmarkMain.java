@@ -0,0 +1,28 @@
+package com.zpj.json.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行所有基准测试，默认启用GC profiler以输出gc.alloc.rate.norm，
+ * 其余参数与JMH的命令行参数相同，例如只运行反序列化：
+ * <pre>java -jar benchmarks.jar Deserialize -p payload=flat</pre>
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.zpj.json.benchmark;
+
+import com.zpj.json.Zson;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 反序列化基准测试
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializeBenchmark {
+
+    @Param({Payloads.FLAT, Payloads.NESTED, Payloads.STRING_LIST, Payloads.INT_ARRAY,
+            Payloads.DOUBLE_ARRAY, Payloads.ESCAPED_TEXT})
+    public String payload;
+
+    /**
+     * 是否使用运行时生成的代码读写对象
+     */
+    @Param({"false", "true"})
+    public boolean codegen;
+
+    private Zson zson;
+    private Class<?> type;
+    private String json;
+    private byte[] utf8;
+
+    @Setup
+    public void setup() throws Exception {
+        zson = new Zson();
+        zson.setCodegenEnabled(codegen);
+        type = Payloads.typeOf(payload);
+        json = zson.serialize(Payloads.create(payload));
+        utf8 = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object fromJsonString() throws Exception {
+        return zson.deserialize(json, type);
+    }
+
+    @Benchmark
+    public Object fromUtf8Bytes() throws Exception {
+        return zson.deserialize(utf8, 0, utf8.length, type);
+    }
+
+}
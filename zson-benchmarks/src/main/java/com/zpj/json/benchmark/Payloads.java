@@ -0,0 +1,202 @@
+package com.zpj.json.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试使用的几种数据形状，使用固定的随机种子生成，每次运行的数据相同
+ */
+public final class Payloads {
+
+    /**
+     * 只包含基本类型和短字符串的扁平对象
+     */
+    public static final String FLAT = "flat";
+
+    /**
+     * 类似TestBean.map3的多层嵌套map
+     */
+    public static final String NESTED = "nested";
+
+    /**
+     * 大量短字符串组成的List
+     */
+    public static final String STRING_LIST = "stringList";
+
+    /**
+     * 大int数组
+     */
+    public static final String INT_ARRAY = "intArray";
+
+    /**
+     * 大double数组，例如传感器采样数据
+     */
+    public static final String DOUBLE_ARRAY = "doubleArray";
+
+    /**
+     * 包含大量需要转义字符的文本
+     */
+    public static final String ESCAPED_TEXT = "escapedText";
+
+    private Payloads() {
+
+    }
+
+    public static class FlatBean {
+        public int a;
+        public long b;
+        public double c;
+        public float d;
+        public boolean e;
+        public short f;
+        public char g;
+        public String name;
+        public Integer boxed;
+        public String empty;
+    }
+
+    public static class NestedBean {
+        public String id;
+        public Map<String, Map<String, List<String>>> map3 = new HashMap<>();
+        public List<NestedBean> children = new ArrayList<>();
+    }
+
+    public static class StringListBean {
+        public List<String> items = new ArrayList<>();
+    }
+
+    public static class IntArrayBean {
+        public int[] values;
+    }
+
+    public static class DoubleArrayBean {
+        public double[] samples;
+    }
+
+    public static class TextBean {
+        public String title;
+        public List<String> lines = new ArrayList<>();
+    }
+
+    public static Class<?> typeOf(String shape) {
+        switch (shape) {
+            case FLAT:
+                return FlatBean.class;
+            case NESTED:
+                return NestedBean.class;
+            case STRING_LIST:
+                return StringListBean.class;
+            case INT_ARRAY:
+                return IntArrayBean.class;
+            case DOUBLE_ARRAY:
+                return DoubleArrayBean.class;
+            case ESCAPED_TEXT:
+                return TextBean.class;
+            default:
+                throw new IllegalArgumentException("Unknown payload: " + shape);
+        }
+    }
+
+    public static Object create(String shape) {
+        Random random = new Random(42);
+        switch (shape) {
+            case FLAT:
+                return flat(random);
+            case NESTED:
+                return nested(random, 3);
+            case STRING_LIST: {
+                StringListBean bean = new StringListBean();
+                for (int i = 0; i < 10000; i++) {
+                    bean.items.add(word(random, 5 + random.nextInt(25)));
+                }
+                return bean;
+            }
+            case INT_ARRAY: {
+                IntArrayBean bean = new IntArrayBean();
+                bean.values = new int[100000];
+                for (int i = 0; i < bean.values.length; i++) {
+                    bean.values[i] = random.nextInt();
+                }
+                return bean;
+            }
+            case DOUBLE_ARRAY: {
+                DoubleArrayBean bean = new DoubleArrayBean();
+                bean.samples = new double[20000];
+                for (int i = 0; i < bean.samples.length; i++) {
+                    bean.samples[i] = random.nextGaussian() * 100;
+                }
+                return bean;
+            }
+            case ESCAPED_TEXT:
+                return text(random);
+            default:
+                throw new IllegalArgumentException("Unknown payload: " + shape);
+        }
+    }
+
+    private static FlatBean flat(Random random) {
+        FlatBean bean = new FlatBean();
+        bean.a = random.nextInt();
+        bean.b = random.nextLong();
+        bean.c = random.nextDouble() * 1e6;
+        bean.d = random.nextFloat();
+        bean.e = random.nextBoolean();
+        bean.f = (short) random.nextInt();
+        bean.g = (char) ('a' + random.nextInt(26));
+        bean.name = word(random, 12);
+        bean.boxed = random.nextInt(1000);
+        return bean;
+    }
+
+    private static NestedBean nested(Random random, int depth) {
+        NestedBean bean = new NestedBean();
+        bean.id = word(random, 8);
+        for (int i = 0; i < 4; i++) {
+            Map<String, List<String>> inner = new HashMap<>();
+            for (int j = 0; j < 4; j++) {
+                List<String> list = new ArrayList<>();
+                for (int k = 0; k < 4; k++) {
+                    list.add(word(random, 6));
+                }
+                inner.put(word(random, 4), list);
+            }
+            bean.map3.put(word(random, 4), inner);
+        }
+        if (depth > 0) {
+            for (int i = 0; i < 3; i++) {
+                bean.children.add(nested(random, depth - 1));
+            }
+        }
+        return bean;
+    }
+
+    private static TextBean text(Random random) {
+        String specials = "\"\\\n\t\r/\u0001é中 ";
+        TextBean bean = new TextBean();
+        bean.title = "He said \"hello\"\\n";
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder builder = new StringBuilder();
+            for (int j = 0; j < 80; j++) {
+                if (random.nextInt(4) == 0) {
+                    builder.append(specials.charAt(random.nextInt(specials.length())));
+                } else {
+                    builder.append((char) ('a' + random.nextInt(26)));
+                }
+            }
+            bean.lines.add(builder.toString());
+        }
+        return bean;
+    }
+
+    private static String word(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+}
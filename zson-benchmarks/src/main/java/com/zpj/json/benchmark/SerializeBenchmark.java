@@ -0,0 +1,54 @@
+package com.zpj.json.benchmark;
+
+import com.zpj.json.Zson;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列化基准测试
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializeBenchmark {
+
+    @Param({Payloads.FLAT, Payloads.NESTED, Payloads.STRING_LIST, Payloads.INT_ARRAY,
+            Payloads.DOUBLE_ARRAY, Payloads.ESCAPED_TEXT})
+    public String payload;
+
+    /**
+     * 是否使用运行时生成的代码读写对象
+     */
+    @Param({"false", "true"})
+    public boolean codegen;
+
+    private Zson zson;
+    private Object value;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() throws Exception {
+        zson = new Zson();
+        zson.setCodegenEnabled(codegen);
+        value = Payloads.create(payload);
+        out = new ByteArrayOutputStream(zson.serialize(value).length() * 2);
+    }
+
+    @Benchmark
+    public String toJsonString() throws Exception {
+        return zson.serialize(value);
+    }
+
+    @Benchmark
+    public int toUtf8Stream() throws Exception {
+        out.reset();
+        zson.serialize(value, out);
+        return out.size();
+    }
+
+}
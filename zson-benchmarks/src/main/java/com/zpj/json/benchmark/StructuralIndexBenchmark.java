@@ -0,0 +1,128 @@
+package com.zpj.json.benchmark;
+
+import com.zpj.json.JsonPointer;
+import com.zpj.json.Projection;
+import com.zpj.json.Zson;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多MB输入上结构索引的基准测试，通过Zson比较启用和不启用索引时按路径取值、按Projection反序列化
+ * 以及反序列化带缩进的json的速度，启用索引时的结果包含建立索引的时间
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructuralIndexBenchmark {
+
+    @Param({Payloads.NESTED, Payloads.STRING_LIST, Payloads.INT_ARRAY, Payloads.ESCAPED_TEXT})
+    public String payload;
+
+    /**
+     * 输入的最小长度，以MB计
+     */
+    @Param({"4"})
+    public int megabytes;
+
+    @Param({"false", "true"})
+    public boolean index;
+
+    private Zson zson;
+    private Class<?> arrayType;
+    private JsonPointer last;
+    private Projection projection;
+    private byte[] utf8;
+    private String indented;
+    private byte[] indentedUtf8;
+
+    @Setup
+    public void setup() throws Exception {
+        zson = new Zson();
+        zson.setStructuralIndexEnabled(index);
+        arrayType = Array.newInstance(Payloads.typeOf(payload), 0).getClass();
+        // 把同一个对象重复写入数组，直到达到需要的长度
+        String element = zson.serialize(Payloads.create(payload));
+        StringBuilder builder = new StringBuilder("[");
+        int count = 0;
+        while (builder.length() < megabytes << 20) {
+            if (count++ > 0) {
+                builder.append(',');
+            }
+            builder.append(element);
+        }
+        String json = builder.append(']').toString();
+        last = JsonPointer.compile("/" + (count - 1));
+        // 只有NestedBean有id字段，其余数据形状的元素整个被跳过
+        projection = Projection.of("id");
+        utf8 = json.getBytes(StandardCharsets.UTF_8);
+        indented = indent(json);
+        indentedUtf8 = indented.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 每个值单独一行，按层级缩进，字符串中的内容保持不变
+     */
+    private static String indent(String json) {
+        StringBuilder builder = new StringBuilder(json.length() * 2);
+        int depth = 0;
+        boolean inString = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            builder.append(c);
+            if (inString) {
+                if (c == '\\') {
+                    builder.append(json.charAt(++i));
+                    continue;
+                }
+                inString = c != '"';
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+                newLine(builder, depth);
+            } else if (c == ',') {
+                newLine(builder, depth);
+            } else if (c == ':') {
+                builder.append(' ');
+            }
+            if (!inString && i + 1 < json.length() && (json.charAt(i + 1) == '}' || json.charAt(i + 1) == ']')) {
+                newLine(builder, --depth);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void newLine(StringBuilder builder, int depth) {
+        builder.append('\n');
+        for (int i = 0; i < depth; i++) {
+            builder.append("  ");
+        }
+    }
+
+    @Benchmark
+    public Object extractLast() throws Exception {
+        return zson.extract(utf8, 0, utf8.length, last);
+    }
+
+    @Benchmark
+    public Object deserializeProjection() throws Exception {
+        return zson.deserialize(utf8, 0, utf8.length, arrayType, projection);
+    }
+
+    @Benchmark
+    public Object deserializeIndented() throws Exception {
+        return zson.deserialize(indentedUtf8, 0, indentedUtf8.length, arrayType);
+    }
+
+    @Benchmark
+    public Object deserializeIndentedString() throws Exception {
+        return zson.deserialize(indented, arrayType);
+    }
+
+}